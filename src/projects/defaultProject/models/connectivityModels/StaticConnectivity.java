@@ -52,4 +52,11 @@ public class StaticConnectivity extends ConnectivityModel {
 	public boolean updateConnections(Node n) {
 		return false;
 	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.models.ConnectivityModel#isTimeVarying()
+	 */
+	public boolean isTimeVarying() {
+		return false;
+	}
 }
@@ -74,4 +74,11 @@ public class ConstantTime extends MessageTransmissionModel {
 	public double timeToReach(Node startNode, Node endNode, Message msg) {
 		return time;
 	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.models.MessageTransmissionModel#isConstant()
+	 */
+	public boolean isConstant() {
+		return true;
+	}
 }
@@ -71,6 +71,13 @@ public class UDG extends ConnectivityModelHelper {
 		double distance = p1.squareDistanceTo(p2);
 		return (distance < squareRadius);
 	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.models.ConnectivityModel#isTimeVarying()
+	 */
+	public boolean isTimeVarying() {
+		return false; // the connections only depend on the node positions
+	}
 	
 	// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
 	// Code to initialize the static variables of this class 
@@ -1,5 +1,6 @@
 package projects.matala15.nodes.messages;
 
+import sinalgo.nodes.messages.ImmutableMessage;
 import sinalgo.nodes.messages.Message;
 
 /**
@@ -7,7 +8,7 @@ import sinalgo.nodes.messages.Message;
  * @author Shlomi Domnenko
  *
  */
-public class MWOEMsg extends Message {
+public class MWOEMsg extends Message implements ImmutableMessage {
 
 	private final long weight;
 	
@@ -87,4 +87,11 @@ public class AntennaConnection extends ConnectivityModelHelper {
 		return false;
 	}
 
+	/* (non-Javadoc)
+	 * @see sinalgo.models.ConnectivityModel#isTimeVarying()
+	 */
+	public boolean isTimeVarying() {
+		return false; // the connections only depend on the node positions
+	}
+
 }
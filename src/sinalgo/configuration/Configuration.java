@@ -269,6 +269,84 @@ public class Configuration {
 	                     "on the project specific CustomGlobal whenever the event queue \n" +
 	                     "becomes empty.")
 	public static boolean handleEmptyEventQueue = true;
+	
+	/** */
+	@OptionalInConfigFile("The number of changes of the event queue after which its\n" +
+	                      "listeners (e.g. the event list of the extended control panel)\n" +
+	                      "are notified while the simulation is running. Pending changes\n" +
+	                      "are published whenever the GUI is redrawn and when the\n" +
+	                      "simulation stops. Set to 1 to notify upon every change.")
+	public static int eventQueueNotificationInterval = 1000;
+	
+	/** */
+	@OptionalInConfigFile("The data structure holding the events of the asynchronous mode.\n" +
+	                      "TreeEventStorage is a red-black tree, HeapEventStorage an array\n" +
+	                      "based heap (see eventHeapArity), and CalendarEventStorage a\n" +
+	                      "calendar queue that is fastest if the messages are delivered\n" +
+	                      "after a constant or bounded random time. All implementations\n" +
+	                      "execute the events in the same order. The name may also be\n" +
+	                      "the fully qualified name of a class extending\n" +
+	                      "sinalgo.runtime.events.EventStorageInterface.")
+	public static String eventStorage = "TreeEventStorage";
+	
+	/** */
+	@OptionalInConfigFile("The number of children of each node in the HeapEventStorage.")
+	public static int eventHeapArity = 4;
+
+	/** */
+	@OptionalInConfigFile("The number of threads on which the nodes perform their step\n" +
+	                      "in synchronous mode. Set to 1 to step the nodes sequentially.\n" +
+	                      "With more threads, the step of a node must not modify other\n" +
+	                      "nodes. The messages sent in a round are delivered in the same\n" +
+	                      "order as in the sequential mode. This flag has no effect if\n" +
+	                      "interference or generateNAckMessages is turned on.")
+	public static int synchronousStepThreads = 1;
+	
+	/** */
+	@OptionalInConfigFile("If set to true, the synchronous simulation skips all rounds\n" +
+	                      "in which no message arrives, no timer fires, and no node has\n" +
+	                      "requested to perform its step (see Node.setNextWakeRound()\n" +
+	                      "and Node.setStepEveryRound()).\n" +
+	                      "This flag has no effect if mobility, interference or\n" +
+	                      "generateNAckMessages is turned on.")
+	public static boolean fastForwardQuiescentRounds = false;
+	
+	/** */
+	@OptionalInConfigFile("If set to true, the synchronous simulation only steps the nodes\n" +
+	                      "at which a message arrives, a timer fires, the neighborhood\n" +
+	                      "changed, or that requested to perform their step (see\n" +
+	                      "Node.setNextWakeRound()). Nodes that poll in every round need\n" +
+	                      "to call Node.setStepEveryRound(true). The nodes of a round are stepped\n" +
+	                      "in the order of their ID. This flag has no effect if\n" +
+	                      "generateNAckMessages is turned on.")
+	public static boolean activeNodeScheduling = false;
+	
+	/** */
+	@OptionalInConfigFile("If set to true, the messages on the way to a node are stored\n" +
+	                      "in arrays instead of packet objects, which reduces the memory\n" +
+	                      "needed for messages in transit. This flag only affects the\n" +
+	                      "synchronous mode, and has no effect if interference or\n" +
+	                      "showMessageAnimations is turned on.")
+	public static boolean arenaPacketBuffers = false;
+	
+	/** */
+	@OptionalInConfigFile("If set to true, all messages a node sends to the same neighbor\n" +
+	                      "in the same round are sent in a single packet, and share its\n" +
+	                      "arrival time. The reliability model is asked for each message\n" +
+	                      "when the packet arrives, and the inbox still presents the messages\n" +
+	                      "individually. This flag only affects the synchronous mode, and\n" +
+	                      "has no effect if interference is turned on or if the message\n" +
+	                      "transmission model does not return a constant time, see\n" +
+	                      "MessageTransmissionModel.isConstant().")
+	public static boolean coalesceMessages = false;
+	
+	/** */
+	@OptionalInConfigFile("If set to true, the synchronous simulation only reevaluates the\n" +
+	                      "connections of nodes that moved, that have a node in their\n" +
+	                      "vicinity that moved, or whose connectivity model is time-\n" +
+	                      "varying. If set to false, the connections of all nodes are\n" +
+	                      "reevaluated in every round.")
+	public static boolean incrementalConnectivity = false;
 
 	/** */
 	@DefaultInConfigFile("The java-command used to start the simulation process.\n" +
@@ -333,6 +411,37 @@ public class Configuration {
 	@DefaultInConfigFile("If set to true, the log files are flushed every time\n" +
 	                       "a new log is added.")
 	public static boolean eagerFlush = false;
+	
+	/** */
+	@OptionalInConfigFile("If set to true, the framework measures the time spent in\n" +
+	                      "each stage of a round. In batch mode, one record per round\n" +
+	                      "is written to the file given by profileFileName, and a\n" +
+	                      "summary is written to the default log file upon exit.")
+	public static boolean profileRounds = false;
+	
+	/** */
+	@OptionalInConfigFile("The name of the file in the log directory to which the round\n" +
+	                      "profile is written. The records are written as JSON objects\n" +
+	                      "if the name ends with '.json', and as CSV otherwise.")
+	public static String profileFileName = "roundProfile.csv";
+	
+	/** */
+	@OptionalInConfigFile("If set to true, the round profile additionally records the\n" +
+	                      "bytes allocated and the time spent in garbage collection\n" +
+	                      "in each stage, and the bytes allocated per node and round.\n" +
+	                      "Only effective if profileRounds is enabled.")
+	public static boolean profileAllocations = false;
+	
+	/** */
+	@OptionalInConfigFile("If set to true, the framework measures the time spent in the\n" +
+	                      "handlers of each node implementation, message type and timer\n" +
+	                      "type. The most expensive handlers are written to the default\n" +
+	                      "log file upon exit, and shown in the graph info dialog.")
+	public static boolean profileHandlers = false;
+	
+	/** */
+	@OptionalInConfigFile("The number of handlers listed in the handler profile.")
+	public static int profileHandlersTopN = 20;
 
 	//-------------------------------------------------------------------------
 	// GUI
@@ -505,6 +614,20 @@ public class Configuration {
 	@OptionalInConfigFile("Draw an envelope for each message that is being sent")
 	public static boolean showMessageAnimations = false;
 	
+	/** */
+	@OptionalInConfigFile("If set to true, the framework keeps a list of all packets that\n" +
+	                      "have not yet been freed (Packet.issuedPackets), e.g. to debug\n" +
+	                      "the recycling of packets. The list is always kept if\n" +
+	                      "showMessageAnimations is enabled.")
+	public static boolean trackIssuedPackets = false;
+	
+	/** */
+	@OptionalInConfigFile("If set to true, the framework tests whether messages that\n" +
+	                      "implement ImmutableMessage are modified while they are being\n" +
+	                      "sent, and stops the simulation with an error if so. The test\n" +
+	                      "uses reflection and slows down the simulation.")
+	public static boolean checkImmutableMessages = false;
+	
 	/** */
 	@OptionalInConfigFile("Width of the envelope (when the message animation is enabled)")
 	public static double messageAnimationEnvelopeWidth = 30;
@@ -37,6 +37,7 @@
 package sinalgo.gui.dialogs;
 
 
+import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.KeyEventPostProcessor;
 import java.awt.KeyboardFocusManager;
@@ -52,6 +53,8 @@ import javax.swing.JButton;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
 import javax.swing.JTextField;
 
 import sinalgo.configuration.Configuration;
@@ -60,6 +63,7 @@ import sinalgo.gui.helper.NonRegularGridLayout;
 import sinalgo.gui.helper.UnborderedJTextField;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.edges.Edge;
+import sinalgo.runtime.HandlerProfiler;
 import sinalgo.runtime.Runtime;
 import sinalgo.tools.Tools;
 
@@ -163,6 +167,15 @@ public class GraphInfoDialog extends JDialog implements ActionListener{
 
 		cp.add(info);
 		
+		if(Configuration.profileHandlers) { // the most expensive handlers
+			JTextArea profile = new JTextArea(HandlerProfiler.getTable(Configuration.profileHandlersTopN));
+			profile.setEditable(false);
+			profile.setFont(new Font("Monospaced", Font.PLAIN, 12));
+			JScrollPane scroll = new JScrollPane(profile);
+			scroll.setPreferredSize(new Dimension(600, 250));
+			cp.add(scroll);
+		}
+		
 		JPanel buttons = new JPanel();
 		
 		close.addActionListener(this);
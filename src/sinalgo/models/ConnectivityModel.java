@@ -61,4 +61,20 @@ public abstract class ConnectivityModel extends Model {
 	 * the type of edges does not fit the type of nodes.
 	 */
 	public abstract boolean updateConnections(Node n) throws WrongConfigurationException;
+	
+	/**
+	 * Indicates whether the connections determined by this model may change although
+	 * no node moves, e.g. because the model is probabilistic.  
+	 * <p>
+	 * If <code>Configuration.incrementalConnectivity</code> is enabled, the connections of a node
+	 * are reevaluated in every round only if this method returns true. Otherwise, they are only 
+	 * reevaluated after the node or a node in its vicinity has moved.
+	 * <p>
+	 * This default implementation returns true. Overwrite this method to return false if
+	 * the connections only depend on the positions of the nodes.
+	 * @return True if the connections may change over time, false if they only depend on the node positions.
+	 */
+	public boolean isTimeVarying() {
+		return true;
+	}
 }
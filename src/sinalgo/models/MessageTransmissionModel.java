@@ -58,6 +58,19 @@ public abstract class MessageTransmissionModel extends Model {
 	 * @return The time it takes the message to travel from the source to the destination.
 	 */
 	public abstract double timeToReach(Node startNode, Node endNode, Message msg);
+	
+	/**
+	 * Indicates whether this model returns the same time for all messages.
+	 * <p>
+	 * The messages a node sends to the same neighbor in the same round are only 
+	 * coalesced if this method returns true, as they share their arrival time 
+	 * (see <code>Configuration.coalesceMessages</code>).
+	 * @return True if <code>timeToReach</code> returns the same time for all messages, 
+	 * otherwise false. The default implementation returns false. 
+	 */
+	public boolean isConstant() {
+		return false;
+	}
 
 	/* (non-Javadoc)
 	 * @see models.Model#getType()
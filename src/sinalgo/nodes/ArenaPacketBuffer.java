@@ -0,0 +1,300 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.nodes;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.edges.Edge;
+import sinalgo.nodes.messages.Inbox;
+import sinalgo.nodes.messages.Message;
+import sinalgo.nodes.messages.MessageBatch;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.nodes.messages.PacketCollection;
+import sinalgo.nodes.messages.Packet.PacketType;
+import sinalgo.runtime.Global;
+
+/**
+ * A packet buffer that stores the packets on the way to a node in parallel arrays
+ * instead of Packet objects. 
+ * <p>
+ * A packet added to this buffer is copied into the arrays, and the Packet object is returned 
+ * to the packet pool right away. Only when the packet arrives, a Packet object is taken from 
+ * the pool again to deliver the message. A packet in transit thus occupies about 40 bytes, 
+ * and the packets of a node are swept in a single pass over its arrays. The packets are
+ * identified by their index in the arrays, and keep the order in which they were added. 
+ * <p>
+ * This buffer is only used in synchronous mode when <code>Configuration.arenaPacketBuffers</code> is
+ * enabled, and neither interference nor the message animations are turned on, as both need 
+ * the Packet objects of the packets in transit.
+ */
+public class ArenaPacketBuffer implements PacketBuffer {
+
+	private static final byte POSITIVE_DELIVERY = 1; // the flag for positiveDelivery, the type is stored in the higher bits
+	private static final PacketType[] packetTypes = PacketType.values();
+	
+	private Node owner; // the destination of all packets in this buffer 
+	
+	// the packets on the way to the owner, the packet with handle i is stored at index i of all arrays
+	private double[] arrivingTime = new double[4];
+	private double[] sendingTime = new double[4];
+	private double[] intensity = new double[4];
+	private Node[] origin = new Node[4];
+	private Edge[] edge = new Edge[4];
+	private Message[] message = new Message[4];
+	private byte[] flags = new byte[4];
+	private int size = 0;
+
+	// the packets that arrive in this step
+	private PacketCollection arrivingPackets = new PacketCollection();
+	private boolean sameArrivingTime = true; // true if all arriving packets have the same arriving time
+	private Inbox inbox = null;
+	
+	/**
+	 * Tests whether the current configuration allows to store the packets in arenas.
+	 * @return True if the nodes should use an ArenaPacketBuffer.
+	 */
+	public static boolean isApplicable() {
+		return Configuration.arenaPacketBuffers && !Configuration.asynchronousMode && 
+		       !Configuration.interference && !Configuration.showMessageAnimations;
+	}
+	
+	/**
+	 * Creates a new buffer for the packets sent to a given node.
+	 * @param owner The destination of the packets in this buffer.
+	 */
+	public ArenaPacketBuffer(Node owner) {
+		this.owner = owner;
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#addPacket(sinalgo.nodes.messages.Packet)
+	 */
+	public void addPacket(Packet p) {
+		if(size == arrivingTime.length) {
+			grow();
+		}
+		arrivingTime[size] = p.arrivingTime;
+		sendingTime[size] = p.sendingTime;
+		intensity[size] = p.intensity;
+		origin[size] = p.origin;
+		edge[size] = p.edge;
+		message[size] = p.message;
+		flags[size] = (byte) ((p.positiveDelivery ? POSITIVE_DELIVERY : 0) | (p.type.ordinal() << 1));
+		size++;
+		Packet.free(p);
+	}
+	
+	/**
+	 * Doubles the capacity of the arrays.
+	 */
+	private void grow() {
+		int n = 2 * arrivingTime.length;
+		double[] d = new double[n];
+		System.arraycopy(arrivingTime, 0, d, 0, size);
+		arrivingTime = d;
+		d = new double[n];
+		System.arraycopy(sendingTime, 0, d, 0, size);
+		sendingTime = d;
+		d = new double[n];
+		System.arraycopy(intensity, 0, d, 0, size);
+		intensity = d;
+		Node[] o = new Node[n];
+		System.arraycopy(origin, 0, o, 0, size);
+		origin = o;
+		Edge[] e = new Edge[n];
+		System.arraycopy(edge, 0, e, 0, size);
+		edge = e;
+		Message[] m = new Message[n];
+		System.arraycopy(message, 0, m, 0, size);
+		message = m;
+		byte[] f = new byte[n];
+		System.arraycopy(flags, 0, f, 0, size);
+		flags = f;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#removePacket(sinalgo.nodes.messages.Packet)
+	 */
+	public void removePacket(Packet p) {
+		for(int i = 0; i < size; i++) {
+			if(message[i] == p.message && origin[i] == p.origin && arrivingTime[i] == p.arrivingTime) {
+				for(int j = i + 1; j < size; j++) {
+					copy(j, j - 1);
+				}
+				clear(--size);
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Moves the packet with the given handle to another handle.
+	 * @param from The handle of the packet.
+	 * @param to The new handle of the packet.
+	 */
+	private void copy(int from, int to) {
+		arrivingTime[to] = arrivingTime[from];
+		sendingTime[to] = sendingTime[from];
+		intensity[to] = intensity[from];
+		origin[to] = origin[from];
+		edge[to] = edge[from];
+		message[to] = message[from];
+		flags[to] = flags[from];
+	}
+	
+	/**
+	 * Removes the references held for a handle that is not used anymore.
+	 * @param i The handle.
+	 */
+	private void clear(int i) {
+		origin[i] = null;
+		edge[i] = null;
+		message[i] = null;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#invalidatePacketsSentOverThisEdge(sinalgo.nodes.edges.Edge)
+	 */
+	public void invalidatePacketsSentOverThisEdge(Edge e) {
+		for(int i = 0; i < size; i++) {
+			if(edge[i] != null && edge[i].getID() == e.getID()) {
+				flags[i] &= ~POSITIVE_DELIVERY;
+				edge[i] = null; // the edge may have been removed and should not be refered to anymore
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#updateMessageBuffer()
+	 */
+	public void updateMessageBuffer() {
+		// ensure that the list of packets is clean (should already be empty)
+		arrivingPackets.clear();
+		sameArrivingTime = true;
+		
+		double now = Global.currentTime;
+		int num = 0; // the number of packets still on the way
+		for(int i = 0; i < size; i++) {
+			if(arrivingTime[i] > now) {
+				if(num != i) {
+					copy(i, num);
+				}
+				num++;
+				continue;
+			}
+			if(edge[i] != null) {
+				MessageBatch.removeMessagesFromEdge(edge[i], message[i]);
+			}
+			boolean positiveDelivery = (flags[i] & POSITIVE_DELIVERY) != 0; 
+			if(positiveDelivery || Configuration.generateNAckMessages) {
+				// create the packet object only for packets that are delivered or returned to the sender
+				Packet p = Packet.fabricatePacket(message[i]);
+				p.arrivingTime = arrivingTime[i];
+				p.sendingTime = sendingTime[i];
+				p.intensity = intensity[i];
+				p.origin = origin[i];
+				p.destination = owner;
+				p.edge = edge[i];
+				p.positiveDelivery = positiveDelivery;
+				p.type = packetTypes[flags[i] >> 1];
+				deliver(p);
+			}
+		}
+		for(int i = num; i < size; i++) {
+			clear(i);
+		}
+		size = num;
+	}
+	
+	/**
+	 * Adds an arrived packet to the arriving packets, or returns it to its sender if it 
+	 * was dropped. A packet carrying a message batch is unpacked into one packet per message.
+	 * @param p The packet that arrived.
+	 */
+	private void deliver(Packet p) {
+		if(p.message instanceof MessageBatch) {
+			MessageBatch batch = (MessageBatch) p.message;
+			for(int i = 0; i < batch.size(); i++) {
+				deliver(batch.createPacket(p, i));
+			}
+			Packet.free(p);
+			return;
+		}
+		if(p.positiveDelivery) {
+			if(!arrivingPackets.isEmpty() && arrivingPackets.firstElement().arrivingTime != p.arrivingTime) {
+				sameArrivingTime = false;
+			}
+			arrivingPackets.add(p);
+		} else {
+			p.origin.addNackPacket(p); // return the packet to the sender
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#getEarliestArrivalTime()
+	 */
+	public double getEarliestArrivalTime() {
+		double min = Double.MAX_VALUE;
+		for(int i = 0; i < size; i++) {
+			if(arrivingTime[i] < min) {
+				min = arrivingTime[i];
+			}
+		}
+		return min;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#waitingPackets()
+	 */
+	public int waitingPackets() {
+		return arrivingPackets.size();
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#getInbox()
+	 */
+	public Inbox getInbox() {
+		if(!sameArrivingTime) {
+			arrivingPackets.sort();
+		}
+		if(inbox == null){
+			inbox = new Inbox(arrivingPackets);
+		}	else {
+			inbox.resetForList(arrivingPackets);
+		}
+		return inbox;
+	}
+}
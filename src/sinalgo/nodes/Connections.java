@@ -103,12 +103,11 @@ public interface Connections  extends Iterable<Edge> {
 	public abstract boolean contains(Node startNode, Node endNode);
 	
 	/**
-	 * Removes all edges whose valid flag is set to false. 
-	 * For all remaining edges (the edges whose valid flag was set
-	 * to true upon calling this method), set the valid flag to false.
+	 * Removes all edges that have not been validated since the last call to this method. 
+	 * The remaining edges need to be validated again before the next call to this method, 
+	 * otherwise they are removed then.
 	 *
-	 * Thus, after calling this method, the valid flag of all edges in 
-	 * this collection is set to false.
+	 * Thus, after calling this method, no edge in this collection is valid.
 	 * @return True if at least one edge was removed, otherwise false.  
 	 */
 	public abstract boolean removeInvalidLinks();
@@ -39,20 +39,40 @@ package sinalgo.nodes;
 import sinalgo.configuration.Configuration;
 import sinalgo.nodes.edges.Edge;
 import sinalgo.nodes.messages.Inbox;
+import sinalgo.nodes.messages.MessageBatch;
 import sinalgo.nodes.messages.Packet;
 import sinalgo.nodes.messages.PacketCollection;
 import sinalgo.runtime.Global;
 import sinalgo.runtime.Runtime;
 import sinalgo.tools.storage.DoublyLinkedList;
-import sinalgo.tools.storage.ReusableListIterator;
 
 /**
  * A list implementation that holds the messages arriving at a node.
+ * <p>
+ * In addition to the list, the packets are kept in buckets per arrival round, which are 
+ * organized as a timing wheel of fixed size. Thus, each round only touches the packets 
+ * that arrive in this round, instead of all packets on the way to the node. The packets 
+ * that arrive too late to fit in the wheel are kept in an overflow list, sorted by their 
+ * arrival round, and are moved to the wheel as time proceeds.
  */
 public class InboxPacketBuffer extends DoublyLinkedList<Packet> implements PacketBuffer {
 //		 the vector of packets that arrive in this step
 	private PacketCollection arrivingPackets = new PacketCollection(); 
-	private ReusableListIterator<Packet> bufferIterator = this.iterator();
+	private boolean sameArrivingTime = true; // true if all arriving packets have the same arriving time
+	
+	// the number of rounds covered by the wheel, must be a power of 2
+	private static final int wheelSize = 64;
+	
+	// the buckets of the packets per arrival round. The wheel covers the rounds
+	// [wheelStart, wheelStart + wheelSize), the packets arriving in round r are stored
+	// in bucket r % wheelSize. The wheel and its buckets are allocated when they are first used.   
+	private PacketCollection[] wheel = null;
+	private long wheelStart = 0;
+	private int numInWheel = 0;
+	
+	// the packets arriving after the rounds covered by the wheel, sorted by their arrival round. 
+	// Packets with the same arrival round are kept in the order they were added.
+	private PacketCollection overflow = null;
 	
 	private Inbox inbox = null;
 	
@@ -83,13 +103,74 @@ public class InboxPacketBuffer extends DoublyLinkedList<Packet> implements Packe
 	 */
 	public void addPacket(Packet p) {
 		append(p);
+		if(numInWheel == 0 && (overflow == null || overflow.isEmpty())) {
+			wheelStart = Math.max(wheelStart, (long) Math.floor(Global.currentTime));
+		}
+		long round = getArrivalRound(p);
+		if(round >= wheelStart + wheelSize) {
+			if(overflow == null) {
+				overflow = new PacketCollection();
+			}
+			// insert after all packets that arrive in the same or an earlier round
+			int low = 0, high = overflow.size();
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(getArrivalRound(overflow.elementAt(mid)) <= round) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			overflow.add(low, p);
+		} else {
+			addToWheel(p, round);
+		}
+	}
+	
+	/**
+	 * Adds a packet to the bucket of its arrival round. 
+	 * @param p The packet to add.
+	 * @param round The arrival round of the packet, which must be before the end of the wheel.
+	 */
+	private void addToWheel(Packet p, long round) {
+		if(wheel == null) {
+			wheel = new PacketCollection[wheelSize];
+		}
+		int index = (int) (Math.max(round, wheelStart) & (wheelSize - 1)); // a packet is not delivered before the current round
+		if(wheel[index] == null) {
+			wheel[index] = new PacketCollection();
+		}
+		wheel[index].add(p);
+		numInWheel++;
+	}
+	
+	/**
+	 * @param p A packet.
+	 * @return The round in which the packet arrives, i.e. the first round not before its arriving time.
+	 */
+	private static long getArrivalRound(Packet p) {
+		return (long) Math.ceil(p.arrivingTime);
 	}
 	
 	/* (non-Javadoc)
 	 * @see nodes.PacketBuffer#removePacket(nodes.messages.Packet)
 	 */
 	public void removePacket(Packet p) {
-		remove(p);
+		if(!remove(p)) {
+			return;
+		}
+		long round = getArrivalRound(p);
+		if(round >= wheelStart + wheelSize) {
+			for(int i = 0; i < overflow.size(); i++) {
+				if(overflow.elementAt(i) == p) {
+					overflow.remove(i);
+					break;
+				}
+			}
+		} else {
+			wheel[(int) (Math.max(round, wheelStart) & (wheelSize - 1))].remove(p);
+			numInWheel--;
+		}
 	}	
 
 	/* (non-Javadoc)
@@ -98,36 +179,125 @@ public class InboxPacketBuffer extends DoublyLinkedList<Packet> implements Packe
 	public void updateMessageBuffer(){
 		// ensure that the list of packets is clean (should already be empty)
 		arrivingPackets.clear();
+		sameArrivingTime = true;
 		
-		bufferIterator.reset();
-		while(bufferIterator.hasNext()){
-			Packet p = bufferIterator.next();
-			
-			if(p.arrivingTime <= Global.currentTime){
-				
-				// only if added
-				if(Configuration.interference){
-					//remove it from the global queue
-					Runtime.packetsInTheAir.remove(p);
-				}
-				
-				bufferIterator.remove();
-				if(p.edge != null) {
-					p.edge.removeMessageForThisEdge(p.message);
+		long now = (long) Math.floor(Global.currentTime);
+		if(now < wheelStart) {
+			return; // no packet arrives in this round
+		}
+		for(long r = wheelStart; numInWheel > 0 && r <= now && r < wheelStart + wheelSize; r++) {
+			PacketCollection bucket = wheel[(int) (r & (wheelSize - 1))];
+			if(bucket == null) {
+				continue;
+			}
+			for(int i = 0; i < bucket.size(); i++) {
+				arrive(bucket.elementAt(i));
+			}
+			numInWheel -= bucket.size();
+			bucket.clear();
+		}
+		wheelStart = now + 1;
+		
+		// the packets of the overflow list that arrive now, or in a round covered by the wheel
+		if(overflow != null && !overflow.isEmpty()) {
+			int num = 0;
+			while(num < overflow.size()) {
+				Packet p = overflow.elementAt(num);
+				long round = getArrivalRound(p);
+				if(round >= wheelStart + wheelSize) {
+					break;
 				}
-				if(p.positiveDelivery){
-					//successful transmission
-					arrivingPackets.add(p);
+				if(round <= now) {
+					arrive(p);
 				} else {
-					// failed transmission, drop the package
-					if(Configuration.generateNAckMessages) {
-						p.origin.addNackPacket(p); // return the packet to the sender
-					} else {
-						Packet.free(p);
+					addToWheel(p, round);
+				}
+				num++;
+			}
+			overflow.subList(0, num).clear();
+		}
+	}
+	
+	/**
+	 * Removes a packet that arrives in this round from this buffer and delivers it.
+	 * @param p The packet that arrived.
+	 */
+	private void arrive(Packet p) {
+		// only if added
+		if(Configuration.interference){
+			//remove it from the global queue
+			Runtime.packetsInTheAir.remove(p);
+		}
+		
+		remove(p);
+		if(p.edge != null) {
+			MessageBatch.removeMessagesFromEdge(p.edge, p.message);
+		}
+		deliver(p);
+	}
+	
+	/**
+	 * Adds an arrived packet to the arriving packets, or drops it if its transmission failed.
+	 * A packet carrying a message batch is unpacked into one packet per message.
+	 * @param p The packet that arrived.
+	 */
+	private void deliver(Packet p) {
+		if(p.message instanceof MessageBatch) {
+			MessageBatch batch = (MessageBatch) p.message;
+			for(int i = 0; i < batch.size(); i++) {
+				deliver(batch.createPacket(p, i));
+			}
+			Packet.free(p);
+			return;
+		}
+		if(p.positiveDelivery){
+			//successful transmission
+			if(!arrivingPackets.isEmpty() && arrivingPackets.firstElement().arrivingTime != p.arrivingTime) {
+				sameArrivingTime = false;
+			}
+			arrivingPackets.add(p);
+		} else {
+			// failed transmission, drop the package
+			if(Configuration.generateNAckMessages) {
+				p.origin.addNackPacket(p); // return the packet to the sender
+			} else {
+				Packet.free(p);
+			}
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#getEarliestArrivalTime()
+	 */
+	public double getEarliestArrivalTime() {
+		double min = Double.MAX_VALUE;
+		// the packets of the first non-empty bucket arrive before all others
+		for(long r = wheelStart; numInWheel > 0 && r < wheelStart + wheelSize; r++) {
+			PacketCollection bucket = wheel[(int) (r & (wheelSize - 1))];
+			if(bucket != null && !bucket.isEmpty()) {
+				for(int i = 0; i < bucket.size(); i++) {
+					Packet p = bucket.elementAt(i);
+					if(p.arrivingTime < min) {
+						min = p.arrivingTime;
 					}
 				}
+				return min;
 			}
 		}
+		// otherwise, the packets at the beginning of the overflow list arrive first
+		if(overflow != null && !overflow.isEmpty()) {
+			long round = getArrivalRound(overflow.firstElement());
+			for(int i = 0; i < overflow.size(); i++) {
+				Packet p = overflow.elementAt(i);
+				if(getArrivalRound(p) != round) {
+					break;
+				}
+				if(p.arrivingTime < min) {
+					min = p.arrivingTime;
+				}
+			}
+		}
+		return min;
 	}
 	
 	/* (non-Javadoc)
@@ -153,7 +323,9 @@ public class InboxPacketBuffer extends DoublyLinkedList<Packet> implements Packe
 	 * @see sinalgo.nodes.PacketBuffer#getInbox()
 	 */
 	public Inbox getInbox() {
-		arrivingPackets.sort();
+		if(!sameArrivingTime) {
+			arrivingPackets.sort();
+		}
 		if(inbox == null){
 			inbox = new Inbox(arrivingPackets);
 		}	else {
@@ -50,7 +50,8 @@ import java.lang.annotation.Target;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.Vector;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.CorruptConfigurationEntryException;
@@ -63,8 +64,10 @@ import sinalgo.models.MobilityModel;
 import sinalgo.models.Model;
 import sinalgo.models.ReliabilityModel;
 import sinalgo.nodes.edges.Edge;
+import sinalgo.nodes.messages.ImmutableMessage;
 import sinalgo.nodes.messages.Inbox;
 import sinalgo.nodes.messages.Message;
+import sinalgo.nodes.messages.MessageBatch;
 import sinalgo.nodes.messages.NackBox;
 import sinalgo.nodes.messages.Packet;
 import sinalgo.nodes.messages.PacketCollection;
@@ -72,8 +75,10 @@ import sinalgo.nodes.messages.Packet.PacketType;
 import sinalgo.nodes.timers.Timer;
 import sinalgo.runtime.GUIRuntime;
 import sinalgo.runtime.Global;
+import sinalgo.runtime.HandlerProfiler;
 import sinalgo.runtime.Main;
 import sinalgo.runtime.NotInGUIModeException;
+import sinalgo.runtime.ParallelNodeStepper;
 import sinalgo.runtime.Runtime;
 import sinalgo.runtime.events.PacketEvent;
 import sinalgo.runtime.nodeCollection.NodeCollectionInfoInterface;
@@ -234,6 +239,71 @@ public abstract class Node implements DoublyLinkedListEntry{
 		return timers;
 	}
 	
+	/**
+	 * Declares the next round in which this node needs to perform its step, even if 
+	 * no message arrives and no timer fires at this node. 
+	 * <p>
+	 * This information is only used in synchronous mode when 
+	 * <code>Configuration.fastForwardQuiescentRounds</code> is enabled: If no node needs to
+	 * perform its step in the next rounds, the framework skips these rounds and 
+	 * directly continues with the first round in which a message arrives, a timer fires or 
+	 * a node wakes up. 
+	 * <p>
+	 * By default, a node only needs to perform its step when a message arrives, a timer 
+	 * fires or its neighborhood changes. The wake round is reset at the beginning of each 
+	 * step, such that this method needs to be called during each step that requests 
+	 * a later step. Nodes that poll in every round should call 
+	 * {@link #setStepEveryRound(boolean)} instead.
+	 * <p>
+	 * Note that the skipped rounds are not executed at all. Protocols that count rounds
+	 * in preStep() or postStep() should therefore derive the round number from 
+	 * Global.currentTime.
+	 * @param round The next round in which this node needs to perform its step.
+	 */
+	public void setNextWakeRound(double round) {
+		nextWakeRound = round;
+		if(Runtime.activeNodeScheduler != null) {
+			Runtime.activeNodeScheduler.schedule(this, round);
+		}
+	}
+	
+	/**
+	 * @return The next round in which this node needs to perform its step, even if 
+	 * no message arrives and no timer fires at this node.
+	 * @see Node#setNextWakeRound(double)
+	 */
+	public double getNextWakeRound() {
+		return nextWakeRound;
+	}
+	
+	/**
+	 * Declares whether this node needs to perform its step in every round, even if
+	 * no message arrives and no timer fires at this node, e.g. because it polls
+	 * some state in preStep() or postStep(). 
+	 * <p>
+	 * This information is only used in synchronous mode when 
+	 * <code>Configuration.activeNodeScheduling</code> or 
+	 * <code>Configuration.fastForwardQuiescentRounds</code> is enabled. 
+	 * Otherwise, all nodes are stepped in every round anyways. By default, 
+	 * a node is not stepped in every round.
+	 * @param stepEveryRound True if this node needs to perform its step in every round.
+	 * @see Node#setNextWakeRound(double)
+	 */
+	public void setStepEveryRound(boolean stepEveryRound) {
+		this.stepEveryRound = stepEveryRound;
+		if(stepEveryRound && nextWakeRound > Global.currentTime + 1) {
+			setNextWakeRound(Global.currentTime + 1);
+		}
+	}
+	
+	/**
+	 * @return True if this node performs its step in every round.
+	 * @see Node#setStepEveryRound(boolean)
+	 */
+	public boolean isSteppedEveryRound() {
+		return stepEveryRound;
+	}
+	
 	/**
 	 * The inbox of this node.
 	 * <p>
@@ -273,6 +343,13 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * The collection of all outgoing Links.
 	 */
 	public Connections outgoingConnections = new NodeOutgoingConnectionsList(true);
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * The edges ending at this node. The list is maintained by the outgoing connections 
+	 * of the neighbors.
+	 */
+	public NodeIncomingConnectionsList incomingConnections = new NodeIncomingConnectionsList();
 
 	/**
 	 * Adds a (unidirectional) connection from this node to another node.
@@ -322,11 +399,23 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * @param z The new z-coordinate of this node
 	 */
 	public final void setPosition(double x, double y, double z) {
+		double oldX = position.xCoord, oldY = position.yCoord, oldZ = position.zCoord;
 		position.xCoord = x;
 		position.yCoord = y;
 		position.zCoord = z;
 		cropPos(position);
+		boolean moved = oldX != position.xCoord || oldY != position.yCoord || oldZ != position.zCoord;
+		if(moved && holdInNodeCollection && Runtime.connectivityTracker != null) {
+			// the nodes around the old position may lose their connection to this node 
+			double newX = position.xCoord, newY = position.yCoord, newZ = position.zCoord;
+			position.assign(oldX, oldY, oldZ);
+			Runtime.connectivityTracker.markVicinityOfMovingNode(this);
+			position.assign(newX, newY, newZ);
+		}
 		Runtime.nodes.updateNodeCollection(this); // note that this method tests whether the node is already added to the node collection
+		if(moved && holdInNodeCollection && Runtime.connectivityTracker != null) {
+			Runtime.connectivityTracker.markVicinityOfMovingNode(this);
+		}
 		nodePositionUpdated();
 	}
 	
@@ -431,7 +520,7 @@ public abstract class Node implements DoublyLinkedListEntry{
 			}
 		}
 		// If there is no edge, the message is marked to not arrive immediately in the sendMessage() method
-		Packet sentP = sendMessage(m, connection, this, target, intensity);
+		Packet sentP = sendMessage(m, connection, this, target, intensity, PacketType.UNICAST);
 		if(Configuration.interference){ //only add the message in the packetsInTheAirBuffer, if interference is turned on
 			Runtime.packetsInTheAir.add(sentP);
 		}	
@@ -463,11 +552,7 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * @param target The destination node of the message
 	 */
 	public final void sendDirect(Message msg, Node target) {
-		Message clonedMsg = msg.clone(); // send a copy of the message
-		if(clonedMsg == null) {
-			Main.fatalError("The clone() method of '" + msg.getClass().getName() + "' returns null \n" + "instead of a copy of the message.");
-		}
-		Packet packet = Packet.fabricatePacket(clonedMsg);
+		Packet packet = Packet.fabricatePacket(getMessageToSend(msg));
 		double transmissionTime = Global.messageTransmissionModel.timeToReach(this, target, msg);
 		
 		// fill in the data of the header
@@ -480,9 +565,9 @@ public abstract class Node implements DoublyLinkedListEntry{
 		packet.positiveDelivery = true; // no disturbtion
 		packet.type = PacketType.UNICAST;
 
-		Global.numberOfMessagesInThisRound++; // statistics
-		
 		if(Global.isAsynchronousMode) {
+			Global.numberOfMessagesInThisRound++; // statistics
+			Global.numberOfPacketsInThisRound++;
 			// add a packet event to the event list
 			Runtime.eventQueue.insert(PacketEvent.getNewPacketEvent(packet, Global.currentTime + transmissionTime));			
 		} else { // Synchronous
@@ -497,8 +582,7 @@ public abstract class Node implements DoublyLinkedListEntry{
 				                "Do not directly call the send-method but start a timer\n" + "so that the node sends during its simulation cycle.");
 				//this will never happen because the fatal error will kill the application.
 			}
-			// place the packet in the destination's receive buffer
-			target.packetBuffer.addPacket(packet); // place the packet in the targets receive buffer
+			placeInReceiveBuffer(packet);
 		}			
 		//There is no interference created by this message - never add it to the list of 'packetsInTheAir'
 	}
@@ -557,7 +641,12 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * Sets the ConnectivityModel for this node.
 	 * @param cM The new ConnectivityModel.
 	 */
-	public final void setConnectivityModel(ConnectivityModel cM){ connectivityModel = cM; }
+	public final void setConnectivityModel(ConnectivityModel cM){ 
+		connectivityModel = cM;
+		if(holdInNodeCollection && Runtime.connectivityTracker != null) {
+			Runtime.connectivityTracker.markNode(this);
+		}
+	}
 
 	/**
 	 * Returns the ConnectivityModel currently used by this node.
@@ -927,36 +1016,44 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 */
 	public final void step() throws WrongConfigurationException{
 		
+		// by default, the node only performs its step again upon a message, a timer or a neighborhood change
+		nextWakeRound = stepEveryRound ? Global.currentTime + 1 : Double.MAX_VALUE;
+		
 		//update the message buffer
 		packetBuffer.updateMessageBuffer();
 		
+		// measures the time spent in the handlers, null if not enabled 
+		HandlerProfiler profiler = HandlerProfiler.getProfiler();
+		long start = profiler != null ? System.nanoTime() : 0;
+		
 		preStep();
+		if(profiler != null) {
+			start = profiler.add(HandlerProfiler.Handler.PRE_STEP, this, start);
+		}
 		
 		// check, if some connections have changed in the last step
 		if(neighborhoodChanged) {
+			neighborhoodChanged = false; // the connections of this node may not be reevaluated in every round
 			neighborhoodChange(); 
 		}
 		
+		SortableVector<Timer> timersToHandle = Node.timersToHandle.get();
 		timersToHandle.clear();
 		// Fire all timers which are going off in this round
-		if(timers.size() > 0){
-			Iterator<Timer> it = timers.iterator();
-			while(it.hasNext()) {
-				Timer timer = it.next();
-				if(timer.getFireTime() <= Global.currentTime){
-					it.remove();
-					// we may not call fire() while iterating over the list of timers of this node,
-					// as the timer could reschedule itself and require to be added again to the
-					// timers list of this node. Therefore, store all timers that fire in a separate
-					// list and call them afterwards. 
-					timersToHandle.add(timer); 
-				}
-			}
-
-			// sort timers by their exact time when they expired 
-			timersToHandle.sort();
+		if(timers.getEarliestFireTime() <= Global.currentTime){
+			// we may not call fire() while removing the timers from the list of timers of this node,
+			// as the timer could reschedule itself and require to be added again to the
+			// timers list of this node. Therefore, store all timers that fire in a separate
+			// list (ordered by their exact time when they expired) and call them afterwards. 
+			timers.pollExpiredTimers(Global.currentTime, timersToHandle);
 			for(Timer t : timersToHandle) {
-				t.fire();
+				if(profiler != null) {
+					start = System.nanoTime();
+					t.fire();
+					profiler.addTimer(t, start);
+				} else {
+					t.fire();
+				}
 			}
 		}
 
@@ -968,16 +1065,32 @@ public abstract class Node implements DoublyLinkedListEntry{
 			} else {
 				nackBox.resetForList(pc);
 			}
-			handleNAckMessages(nackBox);
+			if(profiler != null) {
+				start = System.nanoTime();
+				handleNAckMessages(nackBox);
+				profiler.add(HandlerProfiler.Handler.HANDLE_NACK_MESSAGES, this, start);
+			} else {
+				handleNAckMessages(nackBox);
+			}
 		}
 		
 		//call the 'handleMessages' ALWAYS, and pass the appropriate Inbox. This Inbox
 		//can also be a an Iterator over an empty list.
 		inbox = packetBuffer.getInbox();
-		handleMessages(inbox);
+		if(profiler != null) {
+			profiler.prepareInbox(inbox);
+			start = System.nanoTime();
+			handleMessages(inbox);
+			start = profiler.addMessages(this, start);
+		} else {
+			handleMessages(inbox);
+		}
 		
 		// a custom method that may do something at the end of the step
 		postStep();
+		if(profiler != null) {
+			profiler.add(HandlerProfiler.Handler.POST_STEP, this, start);
+		}
 		
 		//all the packets in the inbox and nackBox are not used anymore and can be freed.
 		inbox.freePackets();
@@ -1004,9 +1117,53 @@ public abstract class Node implements DoublyLinkedListEntry{
 	// A boolean indicating whether the neighborhood of this node has changed in this round.
 	private boolean neighborhoodChanged = false;
 	
-	// !!! NOTE: this is a static vector used by all nodes!
+	// The next round in which this node needs to perform its step, see setNextWakeRound()
+	private double nextWakeRound = 0;
+	
+	// True if this node performs its step in every round, see setStepEveryRound()
+	private boolean stepEveryRound = false;
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b><br>
+	 * The round for which the ActiveNodeScheduler has scheduled this node to perform its step, 
+	 * Long.MAX_VALUE if the node is not scheduled. 
+	 */
+	public long scheduledStepRound = Long.MAX_VALUE;
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b><br>
+	 * True if the ConnectivityChangeTracker has marked the connections of this node to be reevaluated. 
+	 */
+	public boolean connectivityChanged = false;
+	
+	/**
+	 * <b>This method is framework internal and should not be used by the project developer.</b>
+	 * Determines the time of the next event at this node, which is the earliest of
+	 * the wake round, the arrival of a packet, or the firing of a timer. 
+	 * @return The time of the next event at this node.
+	 */
+	public double getNextEventTime() {
+		double min = nextWakeRound;
+		double t = packetBuffer.getEarliestArrivalTime();
+		if(t < min) {
+			min = t;
+		}
+		if(timers.size() > 0) {
+			t = timers.getEarliestFireTime();
+			if(t < min) {
+				min = t;
+			}
+		}
+		return min;
+	}
+	
+	// !!! NOTE: this is a vector used by all nodes that perform their step on the same thread!
 	//it gets cleared by every node at the begining of the step-method and thus can be reused by all the nodes.
-	private static SortableVector<Timer> timersToHandle = new SortableVector<Timer>();
+	private static ThreadLocal<SortableVector<Timer>> timersToHandle = new ThreadLocal<SortableVector<Timer>>() {
+		protected SortableVector<Timer> initialValue() {
+			return new SortableVector<Timer>();
+		}
+	};
 	
 	/**
 	 * The list of active timers.
@@ -1064,7 +1221,7 @@ public abstract class Node implements DoublyLinkedListEntry{
 	/**
 	 * The buffer, where all arriving messages are stored.
 	 */
-	private PacketBuffer packetBuffer = new InboxPacketBuffer(true);
+	private PacketBuffer packetBuffer = ArenaPacketBuffer.isApplicable() ? new ArenaPacketBuffer(this) : new InboxPacketBuffer(true);
 	
 	/**
 	 * Buffer that holds all packets that were sent by this round, and should
@@ -1081,6 +1238,24 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * round, whose round-number is odd.
 	 */
 	private PacketCollection nAckBufferOddRound = new PacketCollection();
+	
+	/**
+	 * The packets sent by this node while the nodes perform their step in parallel, 
+	 * null until this node sends a packet during a parallel step.
+	 */
+	private PacketCollection deferredPackets = null;
+	// the messages passed to the send method for the deferredPackets. A message added to a batch
+	// that has already been sent is kept as the batch, with a null entry in deferredPackets.
+	private Vector<Message> deferredMessages = null; 
+	
+	/**
+	 * The message batches this node has sent in the current round, keyed by the ID of the 
+	 * destination and the packet type, null until this node sends a batch. Only used if 
+	 * messages are coalesced. Unicast and broadcast messages are kept in separate batches, 
+	 * as the type of the batch packet is given to all of its messages.
+	 */
+	private HashMap<Long, MessageBatch> openBatches = null;
+	private double openBatchesTime = -1; // the round in which the batches in openBatches were sent
 
 	// the color of the node, used in the default getColor() implementation 
 	protected Color nodeColor = new Color(0, 0, 0); 
@@ -1109,6 +1284,9 @@ public abstract class Node implements DoublyLinkedListEntry{
 	public final void updateConnections() {
 		if(connectivityModel.updateConnections(this)){
 			neighborhoodChanged = true;
+			if(Runtime.activeNodeScheduler != null) {
+				Runtime.activeNodeScheduler.schedule(this, Global.currentTime);
+			}
 		} else {
 			neighborhoodChanged = false;
 		}
@@ -1254,8 +1432,7 @@ public abstract class Node implements DoublyLinkedListEntry{
 			edgeIteratorInstance.reset();
 			while( edgeIteratorInstance.hasNext()){
 				Edge e = edgeIteratorInstance.next();
-				Packet sentP = sendMessage(m, e, e.startNode, e.endNode, intensity);
-				sentP.type = PacketType.MULTICAST;
+				Packet sentP = sendMessage(m, e, e.startNode, e.endNode, intensity, PacketType.MULTICAST);
 				Runtime.packetsInTheAir.addPassivePacket(sentP);
 				if(longestPacket == null || longestPacket.arrivingTime < sentP.arrivingTime){ // NOTE that the second statement is not esecuted if the first one is true
 					longestPacket = sentP;
@@ -1266,8 +1443,7 @@ public abstract class Node implements DoublyLinkedListEntry{
 			} else { // there was no neighbor
 				// For the interference, we need to send a packet anyways. Send it to this
 				// node itself. 
-				Packet sentP = sendMessage(m, null, this, this, intensity);
-				sentP.type = PacketType.MULTICAST;
+				Packet sentP = sendMessage(m, null, this, this, intensity, PacketType.MULTICAST);
 				sentP.denyDelivery(); // ensure that the packet never arrives at this node
 				Runtime.packetsInTheAir.add(sentP);
 			} 
@@ -1275,8 +1451,7 @@ public abstract class Node implements DoublyLinkedListEntry{
 			edgeIteratorInstance.reset();
 			while( edgeIteratorInstance.hasNext()){
 				Edge e = edgeIteratorInstance.next();
-				Packet sentP = sendMessage(m, e, e.startNode, e.endNode, intensity);
-				sentP.type = PacketType.DUMMY;
+				sendMessage(m, e, e.startNode, e.endNode, intensity, PacketType.DUMMY);
 			}
 		}
 	}
@@ -1293,17 +1468,37 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * @param sender The sender node who sends the message
 	 * @param target The destination node who should receive the message
 	 * @param intensity The radio-intensity of the sender node
-	 * @return The packet that has been transmitted.
+	 * @param type The type of the packet
+	 * @return The packet that has been transmitted. In synchronous mode, the packet may 
+	 * already have been recycled if interference is turned off, and is null if the message 
+	 * was added to a message batch that has already been sent. 
 	 */
-	private Packet sendMessage(Message msg, Edge edge, Node sender, Node target, double intensity) {
+	private Packet sendMessage(Message msg, Edge edge, Node sender, Node target, double intensity, PacketType type) {
 		if(Global.isAsynchronousMode){
-			return asynchronousSending(msg, edge, sender, target, intensity);
+			return asynchronousSending(msg, edge, sender, target, intensity, type);
 		}
 		else{
-			return synchronousSending(msg, edge, sender, target, intensity);
+			return synchronousSending(msg, edge, sender, target, intensity, type);
 		}
 	}
 	
+	/**
+	 * Returns the message object to place into a packet: the message itself if 
+	 * it implements ImmutableMessage, otherwise a copy of the message. 
+	 * @param msg The message to be sent
+	 * @return The message object for the packet
+	 */
+	private static Message getMessageToSend(Message msg) {
+		if(msg instanceof ImmutableMessage) {
+			return msg; // shared by all packets
+		}
+		Message clonedMsg = msg.clone(); // send a copy of the message
+		if(clonedMsg == null) {
+			Main.fatalError("The clone() method of '" + msg.getClass().getName() + "' returns null \n" + "instead of a copy of the message.");
+		}
+		return clonedMsg;
+	}
+	
 	/**
 	 * Sends a message in the asynchronous simulation mode
 	 * @param msg The message to be sent
@@ -1312,15 +1507,12 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * @param sender The sender node who sends the message
 	 * @param target The destination node who should receive the message
 	 * @param intensity The intensity at which the message is sent
+	 * @param type The type of the packet
 	 * @return The packet encapsulating the message
 	 */
-	private Packet asynchronousSending(Message msg, Edge edge, Node sender, Node target, double intensity){
+	private Packet asynchronousSending(Message msg, Edge edge, Node sender, Node target, double intensity, PacketType type){
 				
-		Message clonedMsg = msg.clone(); // send a copy of the message
-		if(clonedMsg == null) {
-			Main.fatalError("The clone() method of '" + msg.getClass().getName() + "' returns null \n" + "instead of a copy of the message.");
-		}
-		Packet packet = Packet.fabricatePacket(clonedMsg);
+		Packet packet = Packet.fabricatePacket(getMessageToSend(msg));
 		double transmissionTime = Global.messageTransmissionModel.timeToReach(sender, target, msg);
 		
 		// fill in the data of the header
@@ -1338,7 +1530,9 @@ public abstract class Node implements DoublyLinkedListEntry{
 		} else {
 			packet.positiveDelivery = false; // when there is no edge, the packet is immediately dropped
 		}
+		packet.type = type; // the reliability model is always asked for a unicast packet
 		
+		Global.numberOfPacketsOverAll++;
 		Global.numberOfMessagesOverAll++; // statistics (don't increment the counter that counts the number of sent messages per round. This counter has no meaning in the async mode.)
 		
 		Runtime.eventQueue.insert(PacketEvent.getNewPacketEvent(packet, Global.currentTime + transmissionTime));
@@ -1354,9 +1548,11 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * @param sender The sender node who sends the message
 	 * @param target The destination node who should receive the message
 	 * @param intensity The intensity at which the message is sent
-	 * @return The packet encapsulating the message
+	 * @param type The type of the packet
+	 * @return The packet encapsulating the message, null if the message was added to
+	 * a message batch that has already been sent 
 	 */
-	private Packet synchronousSending(Message msg, Edge edge, Node sender, Node target, double intensity){
+	private Packet synchronousSending(Message msg, Edge edge, Node sender, Node target, double intensity, PacketType type){
 		//check whether the simulation is currently running or not.
 		if(!Global.isRunning){
 			//The simulation is not running and the send is called. The node is not allowed to 
@@ -1370,37 +1566,148 @@ public abstract class Node implements DoublyLinkedListEntry{
 			return null;
 		}
 		else{
-			Message clonedMsg = msg.clone(); // send a copy of the message
-			if(clonedMsg == null) {
-				Main.fatalError("The clone() method of '" + msg.getClass().getName() + "' returns null \n" + "instead of a copy of the message.");
+			MessageBatch batch = null;
+			if(edge != null && MessageBatch.isApplicable()) {
+				if(openBatches == null) {
+					openBatches = new HashMap<Long, MessageBatch>();
+				} else if(openBatchesTime != Global.currentTime) {
+					openBatches.clear();
+				}
+				openBatchesTime = Global.currentTime;
+				Long key = Long.valueOf(((long) target.ID << 2) | type.ordinal());
+				batch = openBatches.get(key);
+				if(batch != null && batch.edge == edge) {
+					// the batch has already been sent, it carries this message as well
+					batch.add(getMessageToSend(msg));
+					if(ParallelNodeStepper.isStepping) {
+						deferPacket(null, batch);
+					} else {
+						placeOnEdge(batch);
+					}
+					return null;
+				}
+				batch = new MessageBatch(edge);
+				batch.add(getMessageToSend(msg));
+				openBatches.put(key, batch);
 			}
-			Packet packet = Packet.fabricatePacket(clonedMsg);
-			double transmissionTime = Global.messageTransmissionModel.timeToReach(sender, target, msg);
+			Packet packet = Packet.fabricatePacket(batch != null ? batch : getMessageToSend(msg));
 			
 			// fill in the data of the header
-			packet.arrivingTime = Global.currentTime + transmissionTime;
 			packet.sendingTime = Global.currentTime;
 			packet.origin = sender;
 			packet.destination = target;
 			packet.edge = edge;
 			packet.intensity = intensity;
-			packet.type = PacketType.UNICAST;
-	//		 this property must be checked when the entire packet was assembled
-			if(edge != null) {
-				packet.positiveDelivery = reliabilityModel.reachesDestination(packet);
-				edge.addMessageForThisEdge(packet.message);
-			} else {
-				packet.positiveDelivery = false; // when there is no edge, the packet is immediately dropped
-			}
+			packet.type = type;
 			
-			target.packetBuffer.addPacket(packet); // place the packet in the targets receive buffer
+			if(ParallelNodeStepper.isStepping) {
+				// the models may draw from the shared random number generator: only ask 
+				// them after the parallel step, in the order of the sequential runtime
+				deferPacket(packet, msg);
+				return packet;
+			}
 			
-			Global.numberOfMessagesInThisRound++; // statistics (At the end of the round, this member is added to Global.numberOfMessagesOverAll.)
+			applyModels(packet, msg);
+			placeInReceiveBuffer(packet);
 			
 			return packet;
 		}
 	}
+	
+	/**
+	 * Keeps a packet sent during a parallel step until all nodes have performed their step.
+	 * @param packet The packet, null if the message was added to a batch that has already been sent
+	 * @param msg The message passed to the send method, or the batch the message was added to
+	 */
+	private void deferPacket(Packet packet, Message msg) {
+		if(deferredPackets == null) {
+			deferredPackets = new PacketCollection();
+			deferredMessages = new Vector<Message>();
+		}
+		deferredPackets.add(packet);
+		deferredMessages.add(msg);
+	}
+	
+	/**
+	 * Informs the edge of a message batch about the message that was added last to the
+	 * batch, after the batch has been sent. 
+	 * @param batch The batch
+	 */
+	private void placeOnEdge(MessageBatch batch) {
+		batch.addNextMessageToEdge();
+		Global.numberOfMessagesInThisRound++; // statistics
+	}
+	
+	/**
+	 * Asks the message transmission model and the reliability model of this node for 
+	 * the arriving time of a packet sent in synchronous mode and whether it is delivered. 
+	 * <p>
+	 * For a message batch, the reliability model is asked for each message when the
+	 * batch arrives.
+	 * @param packet The packet, whose header is filled in except for the arriving time
+	 * and the delivery
+	 * @param msg The message passed to the send method
+	 */
+	private void applyModels(Packet packet, Message msg) {
+		double transmissionTime = Global.messageTransmissionModel.timeToReach(packet.origin, packet.destination, msg);
+		packet.arrivingTime = Global.currentTime + transmissionTime;
+		if(packet.message instanceof MessageBatch) {
+			packet.positiveDelivery = true; // a batch is always sent over an edge 
+			return;
+		}
+		PacketType type = packet.type;
+		packet.type = PacketType.UNICAST;
+//		 this property must be checked when the entire packet was assembled
+		if(packet.edge != null) {
+			packet.positiveDelivery = reliabilityModel.reachesDestination(packet);
+		} else {
+			packet.positiveDelivery = false; // when there is no edge, the packet is immediately dropped
+		}
+		packet.type = type; // the reliability model is always asked for a unicast packet
+	}
 
+	/**
+	 * Places a packet sent in synchronous mode in the receive buffer of its destination. 
+	 * @param packet The packet to deliver
+	 */
+	private void placeInReceiveBuffer(Packet packet) {
+		if(packet.message instanceof MessageBatch) {
+			((MessageBatch) packet.message).addNextMessageToEdge(); // the edge is informed about each message
+		} else if(packet.edge != null) {
+			packet.edge.addMessageForThisEdge(packet.message);
+		}
+		Global.numberOfMessagesInThisRound++; // statistics (At the end of the round, this member is added to Global.numberOfMessagesOverAll.)
+		Global.numberOfPacketsInThisRound++;
+		if(Runtime.activeNodeScheduler != null) {
+			Runtime.activeNodeScheduler.schedule(packet.destination, packet.arrivingTime);
+		}
+		packet.destination.packetBuffer.addPacket(packet); // place the packet in the targets receive buffer (an ArenaPacketBuffer frees the packet)
+	}
+	
+	/**
+	 * <b>This method is framework internal and should not be used by the project developer.</b><br>
+	 * Places the packets this node has sent during a parallel step in the receive buffers
+	 * of their destinations, in the order in which they were sent. 
+	 */
+	public final void flushDeferredPackets() {
+		if(deferredPackets == null || deferredPackets.isEmpty()) {
+			return;
+		}
+		for(int i = 0; i < deferredPackets.size(); i++) {
+			Packet packet = deferredPackets.elementAt(i);
+			if(packet == null) { // a message added to a batch that has already been sent
+				placeOnEdge((MessageBatch) deferredMessages.elementAt(i));
+				continue;
+			}
+			applyModels(packet, deferredMessages.elementAt(i));
+			placeInReceiveBuffer(packet);
+		}
+		deferredPackets.clear();
+		deferredMessages.clear();
+	}
+	
+	private static HashMap<String, Constructor<? extends Node>> nodeConstructors = new HashMap<String, Constructor<? extends Node>>(); // the constructors of the node types created so far, by the name passed to createNodeByClassname 
+	
 	/**
 	 * <b>This member is framework internal and should not be used by the project developer.</b> 
 	 * Generates a node given its class name.
@@ -1419,10 +1726,13 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * @throws WrongConfigurationException If the node cannot be created.
 	 */
 	public final static Node createNodeByClassname(String classPath) throws WrongConfigurationException {
-		Class<?> nodeClass;
 		Node node = null;
 		
-		if(!classPath.contains(".")) { // is a relative path
+		// the class and constructor are looked up only once per node type
+		Constructor<? extends Node> constructor = nodeConstructors.get(classPath);
+		String name = classPath; 
+		
+		if(constructor == null && !classPath.contains(".")) { // is a relative path
 			if(classPath.contains(":")){ // project implementation
 				String[] splitter = classPath.split(":");
 				classPath = Configuration.userProjectsPath + "." + splitter[0] + ".nodes.nodeImplementations." + splitter[1];
@@ -1432,11 +1742,14 @@ public abstract class Node implements DoublyLinkedListEntry{
 		}
 		
 		try{
-			nodeClass = Class.forName(classPath);
-			Constructor<?> constructor = nodeClass.getConstructor(); 
+			if(constructor == null) {
+				Class<? extends Node> nodeClass = Class.forName(classPath).asSubclass(Node.class);
+				constructor = nodeClass.getConstructor(); 
+				nodeConstructors.put(name, constructor);
+			}
 			// NOTE: we could also call newInstance() on the class-object. But this would not encapsulate 
 			// exceptions that may be thrown in the constructor.
-			node = (Node) constructor.newInstance();
+			node = constructor.newInstance();
 		}
 		catch(ClassNotFoundException e) {
 			throw new WrongConfigurationException(e, "Class not found. Please write a class called: " + classPath + ".java and compile it."); 
@@ -0,0 +1,108 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.nodes;
+
+import sinalgo.nodes.edges.Edge;
+
+/**
+ * The edges that end at a given node.
+ * <p>
+ * The list is maintained by the NodeOutgoingConnectionsList of the start nodes of the 
+ * edges. It is used to remove all edges to a node without looking at all nodes of the 
+ * network. The edges are stored in an array, each edge knows its offset in the array, 
+ * such that adding and removing an edge takes constant time. The order of the edges 
+ * is not preserved upon removal.
+ */
+public class NodeIncomingConnectionsList {
+
+	private static final Edge[] EMPTY = new Edge[0];
+	
+	private Edge[] edges = EMPTY; // allocated when the first edge is added
+	private int size = 0; // # of edges in the list
+	
+	/**
+	 * Adds an edge to this list.
+	 * @param e The edge to add, which must not be contained in this list yet.
+	 */
+	public void add(Edge e) {
+		if(size == edges.length) {
+			Edge[] tmp = new Edge[Math.max(4, 2 * size)];
+			System.arraycopy(edges, 0, tmp, 0, size);
+			edges = tmp;
+		}
+		e.incomingIndex = size;
+		edges[size++] = e;
+	}
+	
+	/**
+	 * Removes an edge from this list. The last edge of the list takes the place 
+	 * of the removed edge.
+	 * @param e The edge to remove
+	 * @return True if the edge was contained in this list, otherwise false.
+	 */
+	public boolean remove(Edge e) {
+		int i = e.incomingIndex;
+		if(i < 0 || i >= size || edges[i] != e) {
+			return false;
+		}
+		Edge last = edges[--size];
+		edges[i] = last;
+		last.incomingIndex = i;
+		edges[size] = null;
+		e.incomingIndex = -1;
+		return true;
+	}
+	
+	/**
+	 * @param index The zero-based offset of the edge in this list.
+	 * @return The edge at the given offset.
+	 * @throws ArrayIndexOutOfBoundsException if the index is negative or not less than the size of this list.
+	 */
+	public Edge elementAt(int index) throws ArrayIndexOutOfBoundsException {
+		if(index >= size) {
+			throw new ArrayIndexOutOfBoundsException("Invalid index: index=" + index + " size of list=" + size);
+		}
+		return edges[index];
+	}
+	
+	/**
+	 * @return The number of edges in this list.
+	 */
+	public int size() {
+		return size;
+	}
+}
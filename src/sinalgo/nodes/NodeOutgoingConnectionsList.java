@@ -38,17 +38,45 @@ package sinalgo.nodes;
 
 import sinalgo.configuration.WrongConfigurationException;
 import sinalgo.nodes.edges.Edge;
+import sinalgo.runtime.Runtime;
 import sinalgo.tools.storage.DoublyLinkedList;
+import sinalgo.tools.storage.IntHashMap;
 import sinalgo.tools.storage.ReusableListIterator;
 
 /**
  * A list that holds the links to all neighbors of a given node.
  * <p>This implementation is designed to be efficient for insertion and deletion of edges.
+ * <p>Next to the ordered list of edges, the connections are indexed by the ID of their end node, 
+ * such that the membership tests performed for every candidate neighbor in each round take 
+ * constant time. The index is kept up to date for all modifications of the list, including the
+ * ones performed through an iterator.  
+ * <p>Each edge added to this list is also added to the list of incoming connections 
+ * of its end node, and removed from it when it leaves this list. 
+ * <p>Instead of a valid flag that is reset on every edge after each evaluation of the connectivity, 
+ * an edge is stamped with the generation of this list in which it was last validated. The list 
+ * counts its valid edges, such that removeInvalidLinks() only needs to traverse the list if some 
+ * edge has not been validated again. 
  */
 public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implements Connections {
 
 	private ReusableListIterator<Edge> edgeIterator = this.iterator();
 	
+	/**
+	 * The edges of this list indexed by the ID of their end node. 
+	 */
+	private IntHashMap<Edge> edgesByEndNode = new IntHashMap<Edge>();
+	
+	/**
+	 * The current generation of this list. An edge is valid if its validGeneration
+	 * equals this value. 
+	 */
+	private int generation = 1;
+	
+	/**
+	 * The number of edges in this list that are valid in the current generation.
+	 */
+	private int numValidEdges = 0;
+	
 	/**
 	 * The constructor for the DLLConnections-class.
 	 *
@@ -67,8 +95,12 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
 		//Each entry is allowed only once in the collection
 		if(!this.containsAndSetVisited(startNode, endNode, valid)){
 			Edge e = Edge.fabricateEdge(startNode, endNode);
-			e.valid = valid;
-			this.append(e);
+			this.append(e); // may have been added already by the initialization of the edge
+			setValid(e, valid);
+			if(!valid && Runtime.connectivityTracker != null) {
+				// the edge was not added by the connectivity model, which needs to confirm it 
+				Runtime.connectivityTracker.markNode(startNode);
+			}
 			return false;
 		}
 		else{
@@ -81,16 +113,12 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
 	 */
 	public Edge remove(Node from, Node to) {
 		//remove the edge from the EdgeCollection
-		edgeIterator.reset();
-		while(edgeIterator.hasNext()){
-			Edge edge = edgeIterator.next();
-			if((from.ID == edge.startNode.ID)&&(to.ID == edge.endNode.ID)){
-				edgeIterator.remove();
-				edge.removeEdgeFromGraph(); // does not free the edge
-				return edge;
-			}
+		Edge edge = find(from, to);
+		if(edge != null) {
+			this.remove(edge);
+			edge.removeEdgeFromGraph(); // does not free the edge
 		}
-		return null;
+		return edge;
 	}
 	
 	/* (non-Javadoc)
@@ -110,14 +138,7 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
 	 * @see nodes.Connections#contains(nodes.Node, nodes.Node)
 	 */
 	public boolean contains(Node startNode, Node endNode){
-		edgeIterator.reset();
-		while(edgeIterator.hasNext()){
-			Edge e = edgeIterator.next();
-			if((e.startNode.ID == startNode.ID)&&(e.endNode.ID == endNode.ID)){
-				return true;
-			}
-		}
-		return false;
+		return find(startNode, endNode) != null;
 	}
 	
 	/* (non-Javadoc)
@@ -129,20 +150,22 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
 		//a boolean to indicate, if something has changed
 		boolean rval = false;
 		
-		edgeIterator.reset();
-		while(edgeIterator.hasNext()){
-			Edge edge = edgeIterator.next();
-			if(edge.valid == false){
-				edgeIterator.remove(); // remove the edge from the list of outgoing connections from this node
-				edge.removeEdgeFromGraph();
-				edge.free(); // return this edge to the edge factory s.t. it can be reused
-				rval = true;
-			}	else {
-				// sets the valid flag of each 'surviving' edge to false, such that in the next round, this edge 
-				//needs to be confirmed again by the connectivity model
-				edge.valid = false; 
+		if(numValidEdges < this.size()) { // otherwise, all edges have been validated
+			edgeIterator.reset();
+			while(edgeIterator.hasNext()){
+				Edge edge = edgeIterator.next();
+				if(edge.validGeneration != generation){
+					edgeIterator.remove(); // remove the edge from the list of outgoing connections from this node
+					edge.removeEdgeFromGraph();
+					edge.free(); // return this edge to the edge factory s.t. it can be reused
+					rval = true;
+				}
 			}
 		}
+		// start a new generation, such that in the next round, the 'surviving' edges 
+		// need to be confirmed again by the connectivity model
+		generation++;
+		numValidEdges = 0;
 		return rval;
 	}
 	
@@ -173,15 +196,7 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
 	 * @return If the specified edge is in the vector.
 	 */
 	protected boolean containsAndSetVisited(Edge edge, boolean valid){
-		edgeIterator.reset();
-		while(edgeIterator.hasNext()){
-			Edge e = edgeIterator.next();
-			if((e.startNode.ID == edge.startNode.ID)&&(e.endNode.ID == edge.endNode.ID)){
-				e.valid = valid;
-				return true;
-			}
-		}
-		return false;
+		return containsAndSetVisited(edge.startNode, edge.endNode, valid);
 	}
 	
 	/**
@@ -198,17 +213,72 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
 	 * @return If the specified edge is in the vector.
 	 */
 	protected boolean containsAndSetVisited(Node startNode, Node endNode, boolean valid){
-		edgeIterator.reset();
-		while(edgeIterator.hasNext()){
-			Edge e = edgeIterator.next();
-			if((e.startNode.ID == startNode.ID)&&(e.endNode.ID == endNode.ID)){
-				e.valid = valid;
-				return true;
-			}
+		Edge e = find(startNode, endNode);
+		if(e != null) {
+			setValid(e, valid);
+			return true;
 		}
 		return false;
 	}
 	
+	/**
+	 * Sets whether an edge of this list is valid in the current generation.
+	 * @param e The edge, which must be contained in this list.
+	 * @param valid True if the edge is valid in this generation, otherwise false.
+	 */
+	private void setValid(Edge e, boolean valid) {
+		if(valid) {
+			if(e.validGeneration != generation) {
+				e.validGeneration = generation;
+				numValidEdges++;
+			}
+		} else if(e.validGeneration == generation) {
+			e.validGeneration = generation - 1;
+			numValidEdges--;
+		}
+	}
+	
+	/**
+	 * Looks up the edge from a given start node to a given end node in this list.
+	 * @param startNode The startNode of the edge to search for.
+	 * @param endNode The endNode of the edge to search for.
+	 * @return The edge from startNode to endNode, null if this list contains no such edge.
+	 */
+	private Edge find(Node startNode, Node endNode) {
+		Edge e = edgesByEndNode.get(endNode.ID);
+		if(e != null && e.startNode.ID == startNode.ID) {
+			return e;
+		}
+		return null;
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.tools.storage.DoublyLinkedList#entryAdded(sinalgo.tools.storage.DoublyLinkedListEntry)
+	 */
+	protected void entryAdded(Edge e) {
+		e.endNode.incomingConnections.add(e);
+		if(e.validGeneration == generation) {
+			numValidEdges++;
+		}
+		// an end node is connected at most once, the first edge to it is the one found by a lookup
+		if(!edgesByEndNode.containsKey(e.endNode.ID)) {
+			edgesByEndNode.put(e.endNode.ID, e);
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.tools.storage.DoublyLinkedList#entryRemoved(sinalgo.tools.storage.DoublyLinkedListEntry)
+	 */
+	protected void entryRemoved(Edge e) {
+		e.endNode.incomingConnections.remove(e);
+		if(e.validGeneration == generation) {
+			numValidEdges--;
+		}
+		if(edgesByEndNode.get(e.endNode.ID) == e) {
+			edgesByEndNode.remove(e.endNode.ID);
+		}
+	}
+	
 	
 	/* (non-Javadoc)
 	 * @see sinalgo.nodes.Connections#randomPermutation()
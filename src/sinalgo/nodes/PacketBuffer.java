@@ -92,6 +92,14 @@ public interface PacketBuffer {
 	 */
 	public abstract void updateMessageBuffer();
 	
+	/**
+	 * Returns the arrival time of the packet in this buffer that arrives first. 
+	 * 
+	 * @return The earliest arrival time of all packets in this buffer, Double.MAX_VALUE
+	 * if there are no packets on the way to this node.
+	 */
+	public abstract double getEarliestArrivalTime();
+	
 	/**
 	 * This method returns a Inbox instance for this PacketBuffer. The inbox instance is used to 
 	 * iterate over the PacketBuffer and to get the Header-Information from the Packets. 
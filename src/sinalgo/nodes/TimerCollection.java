@@ -36,22 +36,32 @@
 */
 package sinalgo.nodes;
 
-
+import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.Vector;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 import sinalgo.nodes.timers.Timer;
 import sinalgo.tools.storage.ReusableIterator;
 
 /**
  * This class is the collection of the timers of a node.
+ * <p>
+ * The timers are stored in a binary heap ordered by their fire time, such that the
+ * timers going off in a round can be removed without looking at the timers that are
+ * scheduled for later rounds. Timers with the same fire time are ordered by the time 
+ * they were added to the collection. 
  */
 public class TimerCollection implements Iterable<Timer>{
-	//Note that a vector is not the best solution, because elements are also removed from the 
-	//begining of the collection but the collection will often be filled with only a few timers 
-	//and thus this does not matter.
-	private Vector<Timer> timers = new Vector<Timer>(0);
+	
+	// the heap of timers, the entry i is the timer timers[i], added with the fire time fireTimes[i]
+	// as the seq[i]-th timer of this collection. 
+	private Timer[] timers = new Timer[2];
+	private double[] fireTimes = new double[2];
+	private long[] seq = new long[2];
+	private int size = 0;
+	private long nextSeq = 0; // the sequence number of the next timer added
 	
 	//the instance of the reusable iterator
 	private ReusableIter iter = null;
@@ -66,7 +76,14 @@ public class TimerCollection implements Iterable<Timer>{
 	 * @return The number of Timers in this collection.
 	 */
 	public int size(){
-		return timers.size();
+		return size;
+	}
+	
+	/**
+	 * @return True if this collection contains no timers.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
 	}
 	
 	/**
@@ -75,7 +92,11 @@ public class TimerCollection implements Iterable<Timer>{
 	 * @param t The timer to add.
 	 */
 	public void add(Timer t){
-		timers.add(t);
+		if(size == timers.length) {
+			grow();
+		}
+		set(size, t, t.getFireTime(), nextSeq++);
+		siftUp(size++);
 		modCount++;
 	}
 	
@@ -94,12 +115,169 @@ public class TimerCollection implements Iterable<Timer>{
 	 * @param t The timer to remove
 	 */
 	public void remove(Timer t) {
-		timers.remove(t);
+		int index = -1;
+		for(int i = 0; i < size; i++) {
+			if(timers[i] == t && (index == -1 || seq[i] < seq[index])) {
+				index = i;
+			}
+		}
+		if(index != -1) {
+			removeAt(index);
+		}
+	}
+	
+	/**
+	 * Returns the time when the earliest timer of this collection fires.
+	 * 
+	 * @return The smallest fire time of all timers in this collection, 
+	 * Double.MAX_VALUE if this collection is empty.
+	 */
+	public double getEarliestFireTime() {
+		return size == 0 ? Double.MAX_VALUE : fireTimes[0];
+	}
+	
+	/**
+	 * Removes the timer that goes off first from this collection, if it goes off at or 
+	 * before a given time.
+	 * <p>
+	 * Each start of a timer adds an entry to this collection. If a timer was restarted 
+	 * while it was in this collection, only the entry of its last start goes off. The 
+	 * entries of the previous starts are removed without being returned. 
+	 * @param time The time until which the timers go off.
+	 * @return The timer that goes off first, null if no timer goes off at or before the given time.
+	 */
+	public Timer pollExpiredTimer(double time) {
+		while(size > 0 && fireTimes[0] <= time) {
+			Timer t = timers[0];
+			double fireTime = fireTimes[0];
+			removeAt(0);
+			if(t.getFireTime() == fireTime) {
+				return t;
+			}
+			// the timer was restarted, and goes off (or went off) at its new fire time 
+		}
+		return null;
+	}
+	
+	/**
+	 * Removes all timers from this collection that go off at or before a given time, and
+	 * appends them to a list, ordered by their fire time.
+	 * <p>
+	 * If a timer was restarted while it was in this collection, it only goes off
+	 * at its new fire time.
+	 * @param time The time until which the timers go off. 
+	 * @param list The list to which the timers are appended.
+	 */
+	public void pollExpiredTimers(double time, List<Timer> list) {
+		Timer t;
+		while((t = pollExpiredTimer(time)) != null) {
+			list.add(t);
+		}
+	}
+	
+	/**
+	 * Doubles the capacity of the heap.
+	 */
+	private void grow() {
+		int n = 2 * timers.length;
+		Timer[] t = new Timer[n];
+		System.arraycopy(timers, 0, t, 0, size);
+		timers = t;
+		double[] f = new double[n];
+		System.arraycopy(fireTimes, 0, f, 0, size);
+		fireTimes = f;
+		long[] s = new long[n];
+		System.arraycopy(seq, 0, s, 0, size);
+		seq = s;
+	}
+	
+	/**
+	 * Sets the heap entry at a given position.
+	 */
+	private void set(int i, Timer t, double fireTime, long s) {
+		timers[i] = t;
+		fireTimes[i] = fireTime;
+		seq[i] = s;
+	}
+	
+	/**
+	 * @return True if the entry at position i goes off before the entry at position j. 
+	 */
+	private boolean before(int i, int j) {
+		return fireTimes[i] < fireTimes[j] || (fireTimes[i] == fireTimes[j] && seq[i] < seq[j]);
+	}
+	
+	/**
+	 * Swaps two entries of the heap.
+	 */
+	private void swap(int i, int j) {
+		Timer t = timers[i];
+		double f = fireTimes[i];
+		long s = seq[i];
+		set(i, timers[j], fireTimes[j], seq[j]);
+		set(j, t, f, s);
+	}
+	
+	/**
+	 * Moves the entry at position i up until the heap property is restored.
+	 * @return The new position of the entry.
+	 */
+	private int siftUp(int i) {
+		while(i > 0) {
+			int parent = (i - 1) / 2;
+			if(!before(i, parent)) {
+				break;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+		return i;
+	}
+	
+	/**
+	 * Moves the entry at position i down until the heap property is restored.
+	 */
+	private void siftDown(int i) {
+		while(true) {
+			int child = 2 * i + 1;
+			if(child >= size) {
+				return;
+			}
+			if(child + 1 < size && before(child + 1, child)) {
+				child++;
+			}
+			if(!before(child, i)) {
+				return;
+			}
+			swap(i, child);
+			i = child;
+		}
+	}
+	
+	/**
+	 * Removes the entry at position i from the heap. 
+	 * @return The timer that was moved from the end of the heap to a position before i, 
+	 * null if no timer was moved before i.
+	 */
+	private Timer removeAt(int i) {
+		size--;
+		Timer moved = null;
+		if(i != size) {
+			set(i, timers[size], fireTimes[size], seq[size]);
+			siftDown(i);
+			if(timers[i] == timers[size] && seq[i] == seq[size] && siftUp(i) < i) {
+				moved = timers[size];
+			}
+		}
+		timers[size] = null;
+		return moved;
 	}
 	
 	/**
 	 * This method returns an iterator for the collection. Note that this method doesn't generate
-	 * a new instance but resets the ReusableIterator and returns it.
+	 * a new instance but resets the ReusableIterator and returns it. 
+	 * <p>
+	 * The iterator does not return the timers in the order of their fire time. 
 	 * 
 	 * @return An iterator over the collection of timers.
 	 */
@@ -114,25 +292,27 @@ public class TimerCollection implements Iterable<Timer>{
 	}
 	
 	/**
-	 * This class is a reusable iterator for the vector based collection. Note that a vector is 
-	 * not the best solution, because elements are also removed from the begining of the collection
-	 * but the collection will often be filled with only a few timers and thus this does not matter.
+	 * This class is a reusable iterator for the heap based collection. When a timer is removed 
+	 * through the iterator, the heap may move a timer that has not yet been returned to a position 
+	 * that the iterator has already passed. Such timers are returned at the end of the iteration.
 	 */
 	private class ReusableIter implements ReusableIterator<Timer>{
-
 		//the counter for the number of modifications 
 		private int expectedModCount;
-		
-		//the position in the vector
+		//the position in the heap
 		private int position;
-		
+		//the position of the timer returned last, -1 if it was returned from the list of moved timers
+		private int lastPosition = -1;
+		//the timers that were moved before the position of the iterator
+		private ArrayList<Timer> movedTimers = new ArrayList<Timer>(0);
+		//the timer returned last from the list of moved timers
+		private Timer lastMovedTimer = null;
 		
 		/**
 		 * Create a new instance of the ReusableIterator
 		 */
 		private ReusableIter(){
-			position = 0;
-			expectedModCount = modCount;
+			reset();
 		}
 		
 		/**
@@ -140,6 +320,9 @@ public class TimerCollection implements Iterable<Timer>{
 		 */
 		public void reset(){
 			position = 0;
+			lastPosition = -1;
+			movedTimers.clear();
+			lastMovedTimer = null;
 			expectedModCount = modCount;
 		}
 		
@@ -147,7 +330,7 @@ public class TimerCollection implements Iterable<Timer>{
 		 * @see java.util.Iterator#hasNext()
 		 */
 		public boolean hasNext() {
-			return (position+1 <= timers.size());
+			return position < size || !movedTimers.isEmpty();
 		}
 
 		/* (non-Javadoc)
@@ -155,14 +338,41 @@ public class TimerCollection implements Iterable<Timer>{
 		 */
 		public Timer next() {
 			checkForComodification();
-			return timers.elementAt(position++);
+			if(position < size) {
+				lastPosition = position;
+				return timers[position++];
+			}
+			if(!movedTimers.isEmpty()) {
+				lastPosition = -1;
+				lastMovedTimer = movedTimers.remove(movedTimers.size() - 1);
+				return lastMovedTimer;
+			}
+			throw new NoSuchElementException();
 		}
-
+		
 		/* (non-Javadoc)
 		 * @see java.util.Iterator#remove()
 		 */
 		public void remove() {
-			timers.remove(--position);
+			if(lastPosition != -1) {
+				Timer moved = removeAt(lastPosition);
+				lastPosition = -1;
+				if(moved == null) {
+					position--; // the entry at the removed position has not been returned yet
+				} else {
+					movedTimers.add(moved);
+				}
+			} else if(lastMovedTimer != null) {
+				for(int i = 0; i < size; i++) {
+					if(timers[i] == lastMovedTimer) {
+						removeAt(i);
+						break;
+					}
+				}
+				lastMovedTimer = null;
+			} else {
+				throw new IllegalStateException();
+			}
 		}
 		
 		/**
@@ -41,7 +41,6 @@ package sinalgo.nodes.edges;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.geom.Line2D;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Iterator;
 
@@ -298,10 +297,18 @@ public class Edge implements DoublyLinkedListEntry{
 
 	/**
 	 * <b>This member is framework internal and should not be used by the project developer.</b> 
-	 * A boolean used to indicate, wether the edge has been validated in this round.
-	 * so after having validated all the edges all dead links remain false. 
+	 * The generation of the outgoing connections of the start node in which this edge was last 
+	 * validated. The edge is valid as long as this value equals the current generation of the 
+	 * connections, which is advanced each time the connectivity of the start node is reevaluated. 
 	 */
-	public boolean valid = false;
+	public int validGeneration = 0;
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * The offset of this edge in the list of incoming connections of its end node, -1 if the
+	 * edge is not contained in that list.
+	 */
+	public int incomingIndex = -1;
 	
 	/**
 	 * <b>This member is framework internal and should not be used by the project developer.</b> 
@@ -360,9 +367,6 @@ public class Edge implements DoublyLinkedListEntry{
 	 */
 	private static long nextId = 1;
 
-	private static Constructor<?> constructor = null;
-	private static String nameOfSearchedEdge = "";
-	
 	public static int numEdgesOnTheFly = 0;
 
 	/**
@@ -381,49 +385,27 @@ public class Edge implements DoublyLinkedListEntry{
 	 */
 	public final static Edge fabricateEdge(Node from, Node to){
 		Edge edge = freeEdges.get();
-		// TODO: this is expensive!
 		if(edge != null) { // we can recycle an edge
 			if(edge.startNode != null || edge.endNode != null) { // sanity check
 				Main.fatalError(Logging.getCodePosition() + " Edge factory failed! About to return an edge that was already returned. (Probably, free() was called > 1 on this edge.)");
 			}
 		} else try { // need to construct a new edge
-			if(Configuration.hasEdgeTypeChanged() || constructor == null) { // 
-				constructor = null;
-				nameOfSearchedEdge = Configuration.getEdgeType();
-				Class<?> edgeClass = Class.forName(nameOfSearchedEdge);
-				Constructor<?>[] list = edgeClass.getDeclaredConstructors();
-				// Test all constructors of the edge-class whether it has 
-				// a corresponding constructor.
-				for(Constructor<?> c : list) {
-					Class<?>[] paramClasses = c.getParameterTypes();
-					if(paramClasses.length != 0) {
-						continue; // need a constructor that takes 2 params
-					}	else {
-						constructor = c;
-						break;
-					}
-				}
-				if(constructor == null) {
-					throw new NoSuchMethodException("Did not find a valid constructor for the "+nameOfSearchedEdge+" class.");
-				}
-				Configuration.setEdgeTypeChanged(false);
-			}
-			edge = (Edge) constructor.newInstance();
+			edge = freeEdges.newEdge();
 		}	catch(ClassNotFoundException cNFE){
-			Main.fatalError("The implementation of the edge '" + nameOfSearchedEdge + "' could not be found.\n" +
+			Main.fatalError("The implementation of the edge '" + Configuration.getEdgeType() + "' could not be found.\n" +
 			                "Change the Type in the XML-File or implement it." + "");
 		} catch (IllegalArgumentException e) {
-			Main.fatalError("Exception caught while creating edge '" + nameOfSearchedEdge + "'.\n" + e);
+			Main.fatalError("Exception caught while creating edge '" + Configuration.getEdgeType() + "'.\n" + e);
 		} catch (InstantiationException e) {
-			Main.fatalError("Exception caught while creating edge '" + nameOfSearchedEdge + "'.\n" + e);
+			Main.fatalError("Exception caught while creating edge '" + Configuration.getEdgeType() + "'.\n" + e);
 		} catch (IllegalAccessException e) {
-			Main.fatalError("Exception caught while creating edge '" + nameOfSearchedEdge + "'.\n" + e);
+			Main.fatalError("Exception caught while creating edge '" + Configuration.getEdgeType() + "'.\n" + e);
 		} catch (InvocationTargetException e) {
-			Main.fatalError("Exception caught while creating edge '" + nameOfSearchedEdge + "'.\n" + e.getCause());
+			Main.fatalError("Exception caught while creating edge '" + Configuration.getEdgeType() + "'.\n" + e.getCause());
 		} catch (SecurityException e) {
-			Main.fatalError("Exception caught while creating edge '" + nameOfSearchedEdge + "'.\n" + e);
+			Main.fatalError("Exception caught while creating edge '" + Configuration.getEdgeType() + "'.\n" + e);
 		} catch (NoSuchMethodException e) {
-			Main.fatalError("Cannot instanciate an edge of type '" + nameOfSearchedEdge + 
+			Main.fatalError("Cannot instanciate an edge of type '" + Configuration.getEdgeType() + 
 			                "' for two nodes of type \n(" + from.getClass().getName() + ", " + 
 			                to.getClass().getName() + ").\n" +
 			                "To select a different edge type, change the config.xml file\n" +
@@ -438,7 +420,7 @@ public class Edge implements DoublyLinkedListEntry{
 
 		edge.sendingColor = defaultEdgeColorActive;
 		edge.defaultColor = defaultEdgeColorPassive;
-		edge.valid = false;
+		edge.validGeneration = 0;
 		
 		edge.numberOfMessagesOnThisEdge = 0;
 		edge.ID = getNextFreeID();
@@ -457,8 +439,7 @@ public class Edge implements DoublyLinkedListEntry{
 	 */
 	public final void removeEdgeFromGraph(){
 		if(Configuration.asynchronousMode) {
-			// This is quite slow as it iterates over all pending events. However,
-			// synchronous simulations are not mobile, therefore this method is not called often.
+			// The event queue keeps an index of the pending events per edge
 			Runtime.eventQueue.invalidatePacketEventsForThisEdge(this);
 		} else {
 			this.endNode.getInboxPacketBuffer().invalidatePacketsSentOverThisEdge(this);
@@ -37,26 +37,34 @@
 package sinalgo.nodes.edges;
 
 
-import java.util.Hashtable;
-import java.util.Stack;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
 
 import sinalgo.configuration.Configuration;
 
 /**
  * This class stores unused Edges to recycle them when a new one is used. This is used to reduce the garbage collection load.
+ * <p>
+ * The edges are kept in a separate pool per edge class. Each pool also holds a method handle to the constructor 
+ * of its class, which is resolved only once, when the first edge of the class needs to be created. The class of the
+ * edge type set in the configuration is only resolved again after the edge type has changed.  
  */
 public class EdgePool{
 	
-	private static Hashtable<String, Stack<Edge>> stacks = new Hashtable<String, Stack<Edge>>();
-	private static Stack<Edge> lastStack = null;
-	private static String lastStackTypeName = "";
+	private static HashMap<Class<?>, TypePool> pools = new HashMap<Class<?>, TypePool>();
+	private static TypePool currentPool = null; // the pool for the edge type set in the configuration
+	private static TypePool lastPool = null; // the pool to which an edge was added most recently
 	
 	/**
 	 * @return The number of freed edges, ready to be reused
 	 */
 	public static int getNumFreedEdges() {
-		if(lastStack != null) {
-			return lastStack.size();
+		if(currentPool != null) {
+			return currentPool.size;
 		} else {
 			return 0;
 		}
@@ -66,14 +74,12 @@ public class EdgePool{
 	 * Removes all edges stored for reuse 
 	 */
 	public static void clear() {
-		for(Stack<Edge> s : stacks.values()) {
-			s.clear();
+		for(TypePool p : pools.values()) {
+			p.clear();
 		}
-		stacks.clear();
-		if(lastStack != null) {
-			lastStack.clear();
-		}			
-		lastStack = null;
+		pools.clear();
+		currentPool = null;
+		lastPool = null;
 	}
 	
 	/**
@@ -82,18 +88,12 @@ public class EdgePool{
 	 * @param e The edge to be added to the Edge Pool
 	 */
 	public void add(Edge e) {
-		String typename = e.getClass().getName();
-		Stack<Edge> st = null;
-		if(typename.equals(lastStackTypeName)) {
-			st = lastStack;
-		} else {
-			st = stacks.get(typename);
-		}
-		if(st == null) {
-			st = new Stack<Edge>();
-			stacks.put(typename, st);
+		TypePool p = lastPool;
+		if(p == null || p.type != e.getClass()) {
+			p = getPool(e.getClass());
+			lastPool = p;
 		}
-		st.push(e);
+		p.push(e);
 	}
 	
 	/**
@@ -102,17 +102,99 @@ public class EdgePool{
 	 * @return An edge of the type given as parameter, null if there is no edge to reuse.
 	 */
 	public Edge get(){
-		if(lastStack == null || Configuration.hasEdgeTypeChanged()){
-			lastStackTypeName = Configuration.getEdgeType();
-			lastStack = stacks.get(lastStackTypeName);
-			if(lastStack == null) {
-				lastStack = new Stack<Edge>();
-				stacks.put(Configuration.getEdgeType(), lastStack);
+		try {
+			return getCurrentPool().pop();
+		} catch(ClassNotFoundException e) {
+			return null; // reported when trying to create a new edge 
+		}
+	}
+	
+	/**
+	 * Creates a new edge of the type defined through the config file.
+	 * @return A new edge of the type set in the config file.
+	 * @throws ClassNotFoundException If the edge type set in the config file does not exist. 
+	 * @throws NoSuchMethodException If the edge class has no constructor without parameters.
+	 * @throws InstantiationException If the edge class is abstract. 
+	 * @throws IllegalAccessException If the constructor of the edge class is not accessible.
+	 * @throws InvocationTargetException If the constructor of the edge class has thrown an exception.
+	 */
+	public Edge newEdge() throws ClassNotFoundException, NoSuchMethodException, InstantiationException, 
+	                             IllegalAccessException, InvocationTargetException {
+		TypePool p = getCurrentPool();
+		if(p.constructor == null) {
+			if(Modifier.isAbstract(p.type.getModifiers())) {
+				throw new InstantiationException(p.type.getName() + " is abstract");
+			}
+			// typed to return an Edge, such that the handle can be invoked exactly 
+			p.constructor = MethodHandles.lookup().unreflectConstructor(p.type.getDeclaredConstructor()).asType(MethodType.methodType(Edge.class));
+		}
+		try {
+			return (Edge) p.constructor.invokeExact();
+		} catch(Throwable t) {
+			throw new InvocationTargetException(t); // thrown by the constructor, wrapped like Constructor.newInstance does
+		}
+	}
+	
+	/**
+	 * @return The pool for the edge type set in the config file.
+	 * @throws ClassNotFoundException If the edge type set in the config file does not exist. 
+	 */
+	private TypePool getCurrentPool() throws ClassNotFoundException {
+		if(currentPool == null || Configuration.hasEdgeTypeChanged()) {
+			currentPool = getPool(Class.forName(Configuration.getEdgeType()).asSubclass(Edge.class));
+			Configuration.setEdgeTypeChanged(false);
+		}
+		return currentPool;
+	}
+	
+	/**
+	 * Returns the pool for a given edge class, and creates it if it does not exist yet.
+	 * @param type The class of the edges in the pool
+	 * @return The pool for the given edge class.
+	 */
+	private static TypePool getPool(Class<? extends Edge> type) {
+		TypePool p = pools.get(type);
+		if(p == null) {
+			p = new TypePool(type);
+			pools.put(type, p);
+		}
+		return p;
+	}
+	
+	/**
+	 * The unused edges of a single edge class, together with the constructor of this class. 
+	 */
+	private static class TypePool {
+		private final Class<? extends Edge> type;
+		private MethodHandle constructor = null; // resolved upon creating the first edge of this type
+		private Edge[] stack = new Edge[16];
+		private int size = 0;
+		
+		private TypePool(Class<? extends Edge> type) {
+			this.type = type;
+		}
+		
+		private void push(Edge e) {
+			if(size == stack.length) {
+				Edge[] tmp = new Edge[2 * size];
+				System.arraycopy(stack, 0, tmp, 0, size);
+				stack = tmp;
+			}
+			stack[size++] = e;
+		}
+		
+		private Edge pop() {
+			if(size == 0) {
+				return null;
 			}
+			Edge e = stack[--size];
+			stack[size] = null;
+			return e;
 		}
-		if(lastStack.empty()){
-			return null;
+		
+		private void clear() {
+			java.util.Arrays.fill(stack, 0, size, null);
+			size = 0;
 		}
-		return lastStack.pop();
 	}
 }
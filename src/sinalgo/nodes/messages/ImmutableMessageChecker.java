@@ -0,0 +1,131 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.nodes.messages;
+
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import sinalgo.runtime.Main;
+
+/**
+ * Detects modifications of messages implementing ImmutableMessage. 
+ * <p>
+ * When such a message is placed into a packet, the checker computes a fingerprint over 
+ * all fields of the message. When the packet is freed, i.e. after the receiver has handled 
+ * the message, the fingerprint is computed again and compared. Primitive fields and arrays 
+ * are compared by value, other objects by identity, such that the modification of an 
+ * object referenced by the message is not detected.  
+ * <p>
+ * The check is only performed if <code>Configuration.checkImmutableMessages</code> is enabled,
+ * as it inspects the messages through reflection.
+ */
+public class ImmutableMessageChecker {
+
+	// the non-static fields of the message classes
+	private static HashMap<Class<?>, Field[]> fields = new HashMap<Class<?>, Field[]>();
+	
+	/**
+	 * Computes the fingerprint of a message. 
+	 * @param msg The message.
+	 * @return A hash over the values of all fields of the message.
+	 */
+	public static long getFingerprint(Message msg) {
+		long hash = 17;
+		for(Field f : getFields(msg.getClass())) {
+			Object value = null;
+			try {
+				value = f.get(msg);
+			} catch(IllegalAccessException e) {
+				Main.fatalError("Cannot check whether the message " + msg.getClass().getName() + " is modified:\n\n" + e.getMessage());
+			}
+			int h;
+			if(value == null) {
+				h = 0;
+			} else if(value.getClass().isArray()) {
+				h = Arrays.deepHashCode(new Object[] {value});
+			} else if(f.getType().isPrimitive()) {
+				h = value.hashCode();
+			} else {
+				h = System.identityHashCode(value);
+			}
+			hash = hash * 1000003 + h;
+		}
+		return hash;
+	}
+	
+	/**
+	 * Tests whether the message of a packet has been modified since the packet was created, 
+	 * and terminates the simulation with an error if so. 
+	 * @param p The packet to test.
+	 */
+	public static void check(Packet p) {
+		if(getFingerprint(p.message) != p.messageFingerprint) {
+			Main.fatalError("A message of type " + p.message.getClass().getName() + " has been modified after it\n" +
+			                "was sent from node " + (p.origin == null ? "?" : Integer.toString(p.origin.ID)) + 
+			                " to node " + (p.destination == null ? "?" : Integer.toString(p.destination.ID)) + ".\n" +
+			                "Messages implementing ImmutableMessage are shared by all packets of a send and\n" +
+			                "must not be modified. Either do not modify the message, or remove the ImmutableMessage\n" +
+			                "interface such that each packet holds a copy of the message.");
+		}
+	}
+	
+	/**
+	 * @param c A message class.
+	 * @return All non-static fields of the class and its super classes.
+	 */
+	private static synchronized Field[] getFields(Class<?> c) {
+		Field[] result = fields.get(c);
+		if(result == null) {
+			ArrayList<Field> list = new ArrayList<Field>();
+			for(Class<?> k = c; k != null && k != Message.class; k = k.getSuperclass()) {
+				for(Field f : k.getDeclaredFields()) {
+					if(!Modifier.isStatic(f.getModifiers())) {
+						f.setAccessible(true);
+						list.add(f);
+					}
+				}
+			}
+			result = list.toArray(new Field[list.size()]);
+			fields.put(c, result);
+		}
+		return result;
+	}
+}
@@ -63,6 +63,10 @@ public abstract class Message {
 	 * is OK if a receiver of this message forwards it. Sending a message does <i>not</i> modify
 	 * the message object. The message is encapsulated in a <code>packet</code> that stores the
 	 * meta information for the transmission.) 
+	 * <p>
+	 * Alternatively, let your message-subclass implement the ImmutableMessage interface. The 
+	 * framework then does not call this method at all, and can check that the message is not 
+	 * modified while it is being sent. 
 	 */
 	public abstract Message clone();
 	
@@ -0,0 +1,175 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.nodes.messages;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.edges.Edge;
+import sinalgo.nodes.messages.Packet.PacketType;
+import sinalgo.runtime.Global;
+
+/**
+ * <b>This class is framework internal and should not be used by the project developer.</b><br>
+ * A message that carries all messages a node sends to the same neighbor within one 
+ * round with the same packet type, if <code>Configuration.coalesceMessages</code> is 
+ * enabled. Unicast and broadcast messages are thus never mixed. The batch is sent as 
+ * a single packet, and unpacked into one packet per message when it arrives, such that 
+ * the inbox presents the messages individually.
+ * <p>
+ * All messages of a batch share the header of the batch packet, i.e. they arrive at the 
+ * same time and over the same edge. Therefore, the messages are only coalesced if the 
+ * message transmission model returns a constant time. The reliability model is asked
+ * for each message of the batch when the batch arrives, and the edge is informed about
+ * each message individually.
+ */
+public final class MessageBatch extends Message {
+
+	private Message[] messages = new Message[2];
+	private int size = 0;
+	private int numOnEdge = 0; // the number of messages the edge has been informed about
+	
+	/**
+	 * The edge over which the batch is sent, null if it is not sent over an edge.
+	 */
+	public final Edge edge;
+	
+	/**
+	 * The time at which the batch was sent.
+	 */
+	public final double sendingTime;
+	
+	/**
+	 * Tests whether the current configuration allows to coalesce the messages sent to the same
+	 * neighbor. 
+	 * @return True if the messages sent to the same neighbor in the same round should be coalesced. 
+	 */
+	public static boolean isApplicable() {
+		return Configuration.coalesceMessages && !Global.isAsynchronousMode && !Configuration.interference && 
+		       Global.messageTransmissionModel.isConstant();
+	}
+	
+	/**
+	 * Creates a new, empty batch. 
+	 * @param edge The edge over which the batch is sent.
+	 */
+	public MessageBatch(Edge edge) {
+		this.edge = edge;
+		this.sendingTime = Global.currentTime;
+	}
+	
+	/**
+	 * Appends a message to this batch.
+	 * @param msg The message to append, a copy of the message sent by the node.
+	 */
+	public void add(Message msg) {
+		if(size == messages.length) {
+			Message[] m = new Message[2 * size];
+			System.arraycopy(messages, 0, m, 0, size);
+			messages = m;
+		}
+		messages[size++] = msg;
+	}
+	
+	/**
+	 * @return The number of messages in this batch.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @param i The index of the message, in the order in which the messages were added. 
+	 * @return The i-th message of this batch.
+	 */
+	public Message get(int i) {
+		return messages[i];
+	}
+	
+	/**
+	 * Informs the edge of this batch that the next message of this batch, in the 
+	 * order in which they were added, is sent over the edge.
+	 */
+	public void addNextMessageToEdge() {
+		edge.addMessageForThisEdge(messages[numOnEdge++]);
+	}
+	
+	/**
+	 * Informs an edge that a message is not sent over the edge anymore. If the message is
+	 * a batch, the edge is informed about each message of the batch.
+	 * @param e The edge over which the message was sent.
+	 * @param msg The message. 
+	 */
+	public static void removeMessagesFromEdge(Edge e, Message msg) {
+		if(msg instanceof MessageBatch) {
+			MessageBatch batch = (MessageBatch) msg;
+			for(int i = 0; i < batch.size; i++) {
+				e.removeMessageForThisEdge(batch.messages[i]);
+			}
+		} else {
+			e.removeMessageForThisEdge(msg);
+		}
+	}
+	
+	/**
+	 * Creates the packet for the i-th message of this batch, with the header 
+	 * of the packet that carried the batch. The packet is only delivered if the 
+	 * batch was delivered, and if the reliability model of the sender accepts the
+	 * packet.
+	 * @param batchPacket The packet that carried this batch.
+	 * @param i The index of the message.
+	 * @return A new packet for the i-th message.
+	 */
+	public Packet createPacket(Packet batchPacket, int i) {
+		Packet p = Packet.fabricatePacket(messages[i]);
+		p.arrivingTime = batchPacket.arrivingTime;
+		p.sendingTime = batchPacket.sendingTime;
+		p.intensity = batchPacket.intensity;
+		p.origin = batchPacket.origin;
+		p.destination = batchPacket.destination;
+		p.edge = batchPacket.edge;
+		p.type = PacketType.UNICAST; // the reliability model is always asked for a unicast packet
+		p.positiveDelivery = batchPacket.positiveDelivery && p.origin.getReliabilityModel().reachesDestination(p);
+		p.type = batchPacket.type;
+		return p;
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.messages.Message#clone()
+	 */
+	public Message clone() {
+		return this; // the framework does not copy batches, as they only contain copies of the messages
+	}
+}
@@ -37,8 +37,12 @@
 package sinalgo.nodes.messages;
 
 
-import java.util.Stack;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import sinalgo.configuration.Configuration;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.edges.Edge;
 import sinalgo.runtime.Main;
@@ -144,35 +148,42 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
 	//-----------------------------------------------------------------------------------
 	//-----------------------------------------------------------------------------------
 	
-	public static int numPacketsOnTheFly = 0; // number of packets in the system, not yet freed
-	
 	/**
 	 * Constructor to create new Packet objects. If possible, this method returns
 	 * a recycled packet. 
+	 * <p>
+	 * Each thread recycles packets from its own pool, such that the nodes may send 
+	 * packets from several threads without synchronization when they perform their 
+	 * step in parallel.
 	 * @param msg The message to create the packet for.
 	 * @return A Packet instance, either a new one or a recycled one.
 	 */
 	public static Packet fabricatePacket(Message msg){
-		numPacketsOnTheFly++;
-		if(freePackets.empty()) {
-			Packet p = new Packet(msg);
-			synchronized(issuedPackets) {
-				issuedPackets.append(p);
-			}
-			return p;
-		}
-		else{
-			Packet rP = freePackets.pop();
-			if(rP.message != null) {
+		PacketPool pool = pools.get();
+		pool.numIssued++;
+		Packet p = pool.pop();
+		if(p == null) {
+			p = new Packet(msg);
+			p.ID = pool.getNextFreeID();
+		} else {
+			if(p.message != null || !p.isFree) {
 				Main.fatalError(Logging.getCodePosition() + " Packet factory failed! About to return a packet that was already returned. (Probably, free() was called > 1 on this packet.)");
 			}
-			rP.ID = getNextFreeID();
-			rP.message = msg;
+			p.ID = pool.getNextFreeID();
+			p.message = msg;
+			p.isFree = false;
+		}
+		p.checkMessage = Configuration.checkImmutableMessages && msg instanceof ImmutableMessage;
+		if(p.checkMessage) {
+			p.messageFingerprint = ImmutableMessageChecker.getFingerprint(msg);
+		}
+		if(isTrackingIssuedPackets()) {
+			p.isTracked = true;
 			synchronized(issuedPackets) {
-				issuedPackets.append(rP);
+				issuedPackets.append(p);
 			}
-			return rP;
 		}
+		return p;
 	}
 	
 	/**
@@ -182,17 +193,28 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
 	 * @param pack The packet to free.
 	 */
 	public static void free(Packet pack){
-		synchronized(issuedPackets) {
-			if(!issuedPackets.remove(pack)) { // nothing happens if the packet is not in the list
-				System.err.println(Logging.getCodePosition() + " Bug in packet factory. Please report this error if you see this line.\n\n\n");
+		if(pack.isFree) {
+			Main.fatalError(Logging.getCodePosition() + " Packet factory failed! The packet has already been freed. (Probably, free() was called > 1 on this packet.)");
+		}
+		if(pack.isTracked) {
+			pack.isTracked = false;
+			synchronized(issuedPackets) {
+				if(!issuedPackets.remove(pack)) { // nothing happens if the packet is not in the list
+					System.err.println(Logging.getCodePosition() + " Bug in packet factory. Please report this error if you see this line.\n\n\n");
+				}
 			}
 		}
-		numPacketsOnTheFly--;
+		if(pack.checkMessage) {
+			ImmutableMessageChecker.check(pack);
+		}
+		pack.isFree = true;
 		pack.destination = null;
 		pack.origin = null;
 		pack.edge = null;
 		pack.message = null;
-		freePackets.push(pack);
+		PacketPool pool = pools.get();
+		pool.numIssued--;
+		pool.push(pack);
 	}
 	
 	/**
@@ -200,26 +222,59 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
 	 */
 	public long ID = 0;
 	
-	//the next id to give to a packet
-	private static long nextID = 1;
-
+	// true while this packet is in a pool
+	private boolean isFree = false;
+	
+	// true if this packet is in the list of issued packets
+	private boolean isTracked = false;
+	
+	// true if the message of this packet is tested for modifications when the packet is freed
+	private boolean checkMessage = false;
+	
 	/**
-	 * @return The next Free ID to be used.
+	 * The fingerprint of the immutable message when it was placed into this packet. 
+	 * @see ImmutableMessageChecker
 	 */
-	private static long getNextFreeID(){
-		if(nextID == 0){
-			Main.minorError("The Packet ID counter overflowed. It is likely that the simulation continues correctly despite of this overlow.");
-		}
-		return nextID++;//implicit post-increment
-	}
+	long messageFingerprint;
+	
+	//the next block of ids to give to the packet pools
+	private static AtomicLong nextID = new AtomicLong(1);
+	
+	// the number of ids a packet pool reserves at once
+	private static final int idBlockSize = 1024;
+	
+	// the number of packets a pool hands to other threads at once
+	private static final int batchSize = 256; 
 	
 	/**
-	 * This is a stack containing all the unused packet instances. To reduce the garbage collection time,
-	 * used Packets are not destroyed but are added to a Packet pool. When a new instance is requested, 
-	 * the system only creates a new instance, when the stack is empty.
+	 * The packet pool of each thread. To reduce the garbage collection time, used Packets 
+	 * are not destroyed but are added to the packet pool of the thread that frees them. When 
+	 * a new instance is requested, the system only creates a new instance if the pool 
+	 * of the thread is empty and no other thread has handed over unused packets.
 	 */
-	private static Stack<Packet> freePackets = new Stack<Packet>();
+	private static ThreadLocal<PacketPool> pools = new ThreadLocal<PacketPool>() {
+		protected PacketPool initialValue() {
+			PacketPool pool = new PacketPool();
+			synchronized(allPools) {
+				allPools.add(pool);
+			}
+			return pool;
+		}
+	};
+	
+	// the pools of all threads that have used packets, only used for the statistics
+	private static ArrayList<PacketPool> allPools = new ArrayList<PacketPool>();
 	
+	// the number of packets issued by threads that have released their pool and not yet freed
+	private static int numIssuedByReleasedPools = 0;
+	
+	/**
+	 * Batches of unused packets that a thread with a large pool has handed over to 
+	 * threads with an empty pool, e.g. from the thread that delivers the packets to 
+	 * the threads that send them. 
+	 */
+	private static ConcurrentLinkedQueue<Packet[]> sharedPackets = new ConcurrentLinkedQueue<Packet[]>();
+	private static AtomicInteger numSharedPackets = new AtomicInteger();
 
 	/**
 	 * List of all packet-objects issued and not yet returned with free. 
@@ -230,25 +285,172 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
 	 * Note that this list is not equivalent to the 'packetsInTheAir' list used
 	 * for interference! This list simply contains all packets objects that are 
 	 * currently used.
+	 * <p>
+	 * The list is only maintained if <code>Configuration.trackIssuedPackets</code> or 
+	 * <code>Configuration.showMessageAnimations</code> is enabled. 
 	 * For now, this member is only experimental.
 	 * <p>
 	 * Whenever accessing this member, you should synchronize on this member
 	 */
 	public static DoublyLinkedList<Packet> issuedPackets = new DoublyLinkedList<Packet>(true);
 	
+	/**
+	 * @return True if the issued packets are added to the list <code>issuedPackets</code>.
+	 */
+	public static boolean isTrackingIssuedPackets() {
+		return Configuration.trackIssuedPackets || Configuration.showMessageAnimations;
+	}
 	
+	/**
+	 * Removes all packets ready to be reused. Must not be called while the 
+	 * nodes perform their step in parallel.
+	 */
 	public static void clearUnusedPackets() {
-		freePackets.clear();
+		synchronized(allPools) {
+			for(PacketPool pool : allPools) {
+				pool.clear();
+			}
+		}
+		sharedPackets.clear();
+		numSharedPackets.set(0);
 	}
 	
 	/**
 	 * @return The number of packets ready to be reused.
 	 */
 	public static int getNumFreedPackets() {
-		return freePackets.size();
+		int num = numSharedPackets.get();
+		synchronized(allPools) {
+			for(PacketPool pool : allPools) {
+				num += pool.size;
+			}
+		}
+		return num;
+	}
+	
+	/**
+	 * The number of packets in the system, not yet freed. 
+	 * <p>
+	 * As the packets are fabricated and freed by several threads, this member is
+	 * only refreshed at the end of each round of a synchronous simulation, at the end of 
+	 * each run of an asynchronous simulation, and whenever <code>getNumPacketsOnTheFly()</code> 
+	 * is called.
+	 * @deprecated Use <code>getNumPacketsOnTheFly()</code> instead.
+	 */
+	@Deprecated
+	public static int numPacketsOnTheFly = 0;
+	
+	/**
+	 * @return The number of packets in the system, not yet freed. 
+	 */
+	@SuppressWarnings("deprecation")
+	public static int getNumPacketsOnTheFly() {
+		int num;
+		synchronized(allPools) {
+			num = numIssuedByReleasedPools;
+			for(PacketPool pool : allPools) {
+				num += pool.numIssued;
+			}
+		}
+		numPacketsOnTheFly = num;
+		return num;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b><br>
+	 * Releases the packet pool of the calling thread. Its unused packets are handed to the 
+	 * other threads, and the pool is not kept for the statistics anymore. Each thread that 
+	 * has fabricated or freed packets should call this method before it terminates.
+	 * <p>
+	 * If the thread uses packets after calling this method, it obtains a new pool.
+	 */
+	public static void releasePoolOfThread() {
+		PacketPool pool = pools.get();
+		pools.remove();
+		synchronized(allPools) {
+			allPools.remove(pool);
+			numIssuedByReleasedPools += pool.numIssued;
+		}
+		while(pool.size > 0) {
+			int num = Math.min(pool.size, batchSize);
+			Packet[] batch = new Packet[num];
+			pool.size -= num;
+			System.arraycopy(pool.packets, pool.size, batch, 0, num);
+			numSharedPackets.addAndGet(num);
+			sharedPackets.offer(batch);
+		}
+	}
+	
+	/**
+	 * The unused packets of a thread.
+	 */
+	private static class PacketPool {
+		private Packet[] packets = new Packet[2 * batchSize];
+		private int size = 0;
+		// the number of packets fabricated minus the number of packets freed by this thread 
+		private int numIssued = 0;
+		// the ids reserved by this pool, nextID is in [nextID, lastID] if there is an id left
+		private long nextID = 0, lastID = -1;
+		
+		/**
+		 * @return An unused packet, null if there is none.
+		 */
+		private Packet pop() {
+			if(size == 0) {
+				Packet[] batch = sharedPackets.poll();
+				if(batch == null) {
+					return null;
+				}
+				numSharedPackets.addAndGet(-batch.length);
+				System.arraycopy(batch, 0, packets, 0, batch.length);
+				size = batch.length;
+			}
+			Packet p = packets[--size];
+			packets[size] = null;
+			return p;
+		}
+		
+		/**
+		 * Adds an unused packet to this pool, and hands a batch of packets to
+		 * the other threads if the pool is full.
+		 * @param p The packet to add.
+		 */
+		private void push(Packet p) {
+			if(size == packets.length) {
+				Packet[] batch = new Packet[batchSize];
+				size -= batchSize;
+				System.arraycopy(packets, size, batch, 0, batchSize);
+				for(int i = size; i < packets.length; i++) {
+					packets[i] = null;
+				}
+				numSharedPackets.addAndGet(batchSize);
+				sharedPackets.offer(batch);
+			}
+			packets[size++] = p;
+		}
+		
+		private void clear() {
+			for(int i = 0; i < size; i++) {
+				packets[i] = null;
+			}
+			size = 0;
+		}
+		
+		/**
+		 * @return The next free ID to be used.
+		 */
+		private long getNextFreeID() {
+			if(nextID > lastID) {
+				nextID = Packet.nextID.getAndAdd(idBlockSize);
+				lastID = nextID + idBlockSize - 1;
+				if(nextID <= 0){
+					Main.minorError("The Packet ID counter overflowed. It is likely that the simulation continues correctly despite of this overlow.");
+				}
+			}
+			return nextID++;//implicit post-increment
+		}
 	}
 	
-
 	/**
 	 * The constructor for the Packet class. This constructor is private to ensure nobody uses it. The 
 	 * proper way to create a Packet is to get an instance by calling the fabricatePacket() method.
@@ -257,7 +459,6 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
 	 */
 	private Packet(Message msg){
 		message = msg;
-		ID = getNextFreeID();
 	}
 
 	/* (non-Javadoc)
@@ -102,6 +102,9 @@ public abstract class Timer implements Comparable<Timer> {
 			Runtime.eventQueue.insert(TimerEvent.getNewTimerEvent(this, fireTime));
 		}	else {
 			node.getTimers().add(this);
+			if(Runtime.activeNodeScheduler != null) {
+				Runtime.activeNodeScheduler.schedule(node, fireTime);
+			}
 		}
 	}
 	
@@ -123,6 +126,9 @@ public abstract class Timer implements Comparable<Timer> {
 			Runtime.eventQueue.insert(TimerEvent.getNewTimerEvent(this, fireTime));
 		} else {
 			node.getTimers().add(this);
+			if(Runtime.activeNodeScheduler != null) {
+				Runtime.activeNodeScheduler.schedule(node, fireTime);
+			}
 		}
 	}
 
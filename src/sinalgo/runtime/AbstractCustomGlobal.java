@@ -43,10 +43,10 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.lang.reflect.Method;
-import java.util.TreeSet;
 
 import sinalgo.gui.transformation.PositionTransformation;
 import sinalgo.nodes.Node;
+import sinalgo.nodes.TimerCollection;
 import sinalgo.nodes.timers.Timer;
 
 /**
@@ -211,6 +211,21 @@ public abstract class AbstractCustomGlobal {
 		// file in your project.
 	}
 	
+	/**
+	 * The framework calls this method in synchronous mode after each round if 
+	 * <code>Configuration.fastForwardQuiescentRounds</code> is enabled, to determine
+	 * the next round that may not be skipped, even if no node needs to perform its step.
+	 * <p>
+	 * For skipped rounds, neither preRound(), postRound() nor hasTerminated() are called.
+	 * Overwrite this method if these methods need to be called in a certain round.
+	 * Global timers are considered by the framework and need not be reported here.
+	 * @return The next round that may not be skipped, Double.MAX_VALUE if any round may be skipped.
+	 * @see sinalgo.nodes.Node#setNextWakeRound(double)
+	 */
+	public double getNextWakeRound() {
+		return Double.MAX_VALUE;
+	}
+	
 	/**
 	 * The framework calls this method at startup after having selected a project
 	 * to check whether the necessary requirements for this project are given.
@@ -247,9 +262,15 @@ public abstract class AbstractCustomGlobal {
 	/**
 	 * List of all global timers for a synchronous simulation. 
 	 * (In asynchronous mode, the global timers are also handled
-	 * as events.) 
+	 * as events.) Timers with the same fire time go off in the order
+	 * in which they were started. 
+	 * <p>
+	 * Note that this member used to be a <code>TreeSet&lt;Timer&gt;</code>. Code that
+	 * accesses it directly needs to be adapted to the methods of the TimerCollection, 
+	 * e.g. <code>getEarliestFireTime()</code> instead of <code>first()</code>. 
+	 * To start a global timer, use <code>Timer.startGlobalTimer()</code>. 
 	 */
-	public TreeSet<Timer> globalTimers = new TreeSet<Timer>();
+	public TimerCollection globalTimers = new TimerCollection();
 
 	/**
 	 * <b>This member is framework internal and should not be used by the project developer.</b>
@@ -260,17 +281,19 @@ public abstract class AbstractCustomGlobal {
 	 * incrementing the global time, and after calling {@link #preRound()}.  
 	 */
 	public void handleGlobalTimers() {
-		if(globalTimers.isEmpty()) {
+		if(globalTimers.getEarliestFireTime() > Global.currentTime) {
 			return;
 		}
-		Timer t = globalTimers.first();
-		while(t.getFireTime() <= Global.currentTime) {
-			globalTimers.remove(t);
-			t.fire();
-			if(globalTimers.isEmpty()) {
-				break;
+		HandlerProfiler profiler = HandlerProfiler.getProfiler(); // null if not enabled
+		Timer t;
+		while((t = globalTimers.pollExpiredTimer(Global.currentTime)) != null) {
+			if(profiler != null) {
+				long start = System.nanoTime();
+				t.fire();
+				profiler.addTimer(t, start);
+			} else {
+				t.fire();
 			}
-			t = globalTimers.first(); // go to the next timer
 		}
 	}
 	
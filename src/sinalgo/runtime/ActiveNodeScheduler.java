@@ -0,0 +1,257 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime;
+
+
+import sinalgo.configuration.Configuration;
+import sinalgo.configuration.WrongConfigurationException;
+import sinalgo.nodes.Node;
+import sinalgo.tools.logging.LogL;
+
+
+/**
+ * Determines the nodes that need to perform their step in a synchronous round, such
+ * that only these nodes are stepped.
+ * <p>
+ * A node needs to perform its step in a round if a packet arrives at the node, if one
+ * of its timers fires, if its neighborhood changed, if it requested a step in this round 
+ * (see {@link Node#setNextWakeRound(double)}), or if it is stepped in every round 
+ * (see {@link Node#setStepEveryRound(boolean)}). All other nodes are idle. The cost of a 
+ * round is proportional to the number of nodes stepped in that round, not to the number 
+ * of nodes in the network.
+ * <p>
+ * The scheduled nodes are kept in a heap sorted by the round in which they need to perform
+ * their step, and by their ID. The nodes of a round are stepped in the order of their ID,
+ * which may differ from the order of the node collection used when all nodes are stepped.
+ * <p>
+ * A node may be contained several times in the heap. Only the entry for the earliest
+ * round, which is stored in the node, is valid. All other entries are dropped when 
+ * they are removed from the heap. 
+ */
+public class ActiveNodeScheduler {
+
+	// the heap of scheduled nodes, and the round in which each node needs to perform its step
+	private Node[] heapNodes = new Node[64];
+	private long[] heapRounds = new long[64];
+	private int heapSize = 0;
+	
+	// the last round for which the active nodes were determined
+	private long lastRound;
+
+	// the nodes to step in the current round
+	private Node[] active = new Node[16];
+	private int numActive = 0;
+	
+	/**
+	 * Creates a new scheduler and schedules all nodes currently in the 
+	 * node collection according to their next event.
+	 */
+	public ActiveNodeScheduler() {
+		lastRound = (long) Global.currentTime;
+		for(Node n : Runtime.nodes) {
+			n.scheduledStepRound = Long.MAX_VALUE; // the node may be in the heap of a former scheduler
+			schedule(n, n.getNextEventTime());
+		}
+	}
+
+	/**
+	 * Tests whether the current configuration allows to step only the active nodes.
+	 * @return True if only the active nodes may be stepped, otherwise false.
+	 */
+	public static boolean isApplicable() {
+		if(!Configuration.activeNodeScheduling) {
+			return false;
+		}
+		if(Configuration.generateNAckMessages) {
+			if(LogL.HINTS) {
+				Global.log.logln("Hint: All nodes are stepped in each round, as stepping only the active nodes\n" +
+				                 "is not supported when generateNAckMessages is turned on.");
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Schedules a node to perform its step in the round of the given time. If this round
+	 * has already been stepped, the node performs its step in the next round.
+	 * <p>
+	 * This method has no effect while the nodes are stepped in parallel. The framework
+	 * then reschedules all stepped nodes after their step. 
+	 * @param n The node to schedule.
+	 * @param time The time of an event at the node.
+	 */
+	public void schedule(Node n, double time) {
+		if(ParallelNodeStepper.isStepping || time == Double.MAX_VALUE) {
+			return;
+		}
+		long round = (long) Math.ceil(time); // an event at time t is handled in round ceil(t)
+		if(round <= lastRound) {
+			round = lastRound + 1;
+		}
+		if(round >= n.scheduledStepRound) {
+			return; // the node is already scheduled for an earlier round
+		}
+		n.scheduledStepRound = round;
+		if(heapSize == heapNodes.length) {
+			Node[] nodes = new Node[2 * heapSize];
+			System.arraycopy(heapNodes, 0, nodes, 0, heapSize);
+			heapNodes = nodes;
+			long[] rounds = new long[2 * heapSize];
+			System.arraycopy(heapRounds, 0, rounds, 0, heapSize);
+			heapRounds = rounds;
+		}
+		// sift up
+		int pos = heapSize++;
+		while(pos > 0) {
+			int parent = (pos - 1) >>> 1;
+			if(!isBefore(round, n, heapRounds[parent], heapNodes[parent])) {
+				break;
+			}
+			heapNodes[pos] = heapNodes[parent];
+			heapRounds[pos] = heapRounds[parent];
+			pos = parent;
+		}
+		heapNodes[pos] = n;
+		heapRounds[pos] = round;
+	}
+	
+	/**
+	 * Determines the earliest round in which a node needs to perform its step.
+	 * @return The earliest round in which a node is scheduled, Double.MAX_VALUE if no node is scheduled.
+	 */
+	public double getNextRound() {
+		while(heapSize > 0 && !isValidTop()) {
+			removeTop();
+		}
+		return heapSize > 0 ? heapRounds[0] : Double.MAX_VALUE;
+	}
+	
+	/**
+	 * Performs the step of all nodes scheduled for the current round and schedules
+	 * them according to their next event.
+	 * @param parallelStepper The stepper to step the nodes in parallel, null to step the nodes sequentially.
+	 * @throws WrongConfigurationException If a node throws this exception in its step.
+	 */
+	public void step(ParallelNodeStepper parallelStepper) throws WrongConfigurationException {
+		lastRound = (long) Global.currentTime;
+		numActive = 0;
+		while(heapSize > 0 && heapRounds[0] <= lastRound) {
+			Node n = heapNodes[0];
+			boolean valid = isValidTop();
+			removeTop();
+			if(valid) {
+				n.scheduledStepRound = Long.MAX_VALUE;
+				if(n.holdInNodeCollection) { // the node may have been removed
+					if(numActive == active.length) {
+						Node[] a = new Node[2 * numActive];
+						System.arraycopy(active, 0, a, 0, numActive);
+						active = a;
+					}
+					active[numActive++] = n;
+				}
+			}
+		}
+		try {
+			if(parallelStepper != null) {
+				parallelStepper.step(active, numActive);
+			} else {
+				for(int i = 0; i < numActive; i++) {
+					active[i].step();
+				}
+			}
+		} finally {
+			for(int i = 0; i < numActive; i++) {
+				schedule(active[i], active[i].getNextEventTime());
+				active[i] = null; // do not keep references to removed nodes
+			}
+		}
+	}
+
+	/**
+	 * @return The number of nodes stepped in the last round.
+	 */
+	public int getNumberOfActiveNodes() {
+		return numActive;
+	}
+	
+	/**
+	 * @return True if the top entry of the heap is the valid entry for its node.
+	 */
+	private boolean isValidTop() {
+		return heapNodes[0].scheduledStepRound == heapRounds[0];
+	}
+	
+	/**
+	 * Removes the top entry of the heap.
+	 */
+	private void removeTop() {
+		heapSize--;
+		Node n = heapNodes[heapSize];
+		long round = heapRounds[heapSize];
+		heapNodes[heapSize] = null;
+		if(heapSize == 0) {
+			return;
+		}
+		// sift down
+		int pos = 0;
+		while(true) {
+			int child = 2 * pos + 1;
+			if(child >= heapSize) {
+				break;
+			}
+			if(child + 1 < heapSize && isBefore(heapRounds[child + 1], heapNodes[child + 1], heapRounds[child], heapNodes[child])) {
+				child++;
+			}
+			if(!isBefore(heapRounds[child], heapNodes[child], round, n)) {
+				break;
+			}
+			heapNodes[pos] = heapNodes[child];
+			heapRounds[pos] = heapRounds[child];
+			pos = child;
+		}
+		heapNodes[pos] = n;
+		heapRounds[pos] = round;
+	}
+	
+	/**
+	 * Orders the entries of the heap by their round, and by the ID of the node.
+	 */
+	private static boolean isBefore(long r1, Node n1, long r2, Node n2) {
+		return r1 < r2 || (r1 == r2 && n1.ID < n2.ID);
+	}
+}
@@ -38,6 +38,7 @@ package sinalgo.runtime;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.nodes.Node;
+import sinalgo.nodes.messages.Packet;
 import sinalgo.runtime.events.Event;
 import sinalgo.runtime.events.EventQueue;
 import sinalgo.tools.logging.LogL;
@@ -99,6 +100,17 @@ public class AsynchronousRuntimeThread extends Thread{
 	 * @see java.lang.Thread#run()
 	 */
 	public void run(){
+		try {
+			simulate();
+		} finally {
+			Packet.releasePoolOfThread(); // this thread does not use its packet pool anymore
+		}
+	}
+	
+	/**
+	 * Performs the simulation of this thread.
+	 */
+	private void simulate() {
 		Global.isRunning = true;
 		
 		Event event = null;
@@ -106,6 +118,11 @@ public class AsynchronousRuntimeThread extends Thread{
 		if(!connectivityInitialized && Configuration.initializeConnectionsOnStartup){
 			initializeConnectivity();
 		}
+		
+		RoundProfiler profiler = RoundProfiler.getProfiler(); // null if the events are not profiled
+		if(profiler != null) {
+			profiler.beginRound(Global.currentTime);
+		}
 
 		for(long i = 0; i < numberOfEvents; i++) {
 			// In GUI-mode, check whether ABORT was pressed.
@@ -133,10 +150,25 @@ public class AsynchronousRuntimeThread extends Thread{
 				}
 			}
 			
+			if(profiler != null) {
+				if(profiler.isBeforeRound(event.time)) { // the event starts a new record
+					profiler.endStage(RoundProfiler.Stage.EVENT_QUEUE);
+					profiler.endRound();
+					profiler.beginRound(event.time);
+				} else {
+					profiler.endStage(RoundProfiler.Stage.EVENT_QUEUE);
+				}
+			}
+			
 			Global.currentTime = event.time;
 			
 			event.handle(); // does not yet free the event
 			
+			if(profiler != null) {
+				profiler.endStage(RoundProfiler.Stage.EVENTS);
+				profiler.addNodes(1);
+			}
+			
 			if(Global.isGuiMode){
 				if(i%refreshRate == refreshRate -1 && i+1 < numberOfEvents){ // only perform if we continue with more events
 					if(lastEventNode != null){
@@ -148,7 +180,11 @@ public class AsynchronousRuntimeThread extends Thread{
 					lastEventNode = event.getEventNode();// may be null, if the event does not execute on a node
 					runtime.getGUI().setRoundsPerformed((Global.currentTime), EventQueue.eventNumber);
 					runtime.getGUI().setCurrentlyProcessedEvent(event); // does not store the event
+					Runtime.eventQueue.flushNotifications();
 					runtime.getGUI().redrawGUINow();
+					if(profiler != null) {
+						profiler.endStage(RoundProfiler.Stage.GUI);
+					}
 				}
 			}
 		}
@@ -181,5 +217,7 @@ public class AsynchronousRuntimeThread extends Thread{
 			event = null;
 		}
 		Global.isRunning = false;
+		Packet.getNumPacketsOnTheFly(); // refreshes the deprecated counter Packet.numPacketsOnTheFly
+		Runtime.eventQueue.flushNotifications();
 	}
 }
@@ -0,0 +1,170 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime;
+
+
+import java.util.Enumeration;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.Node;
+
+
+/**
+ * Keeps track of the nodes whose connections need to be reevaluated in synchronous mode,
+ * such that the connectivity model is not called for nodes whose neighborhood cannot 
+ * have changed.
+ * <p>
+ * The connections of a node are reevaluated in the round after the node or a node 
+ * in its vicinity moved, after the node was added, after its connectivity model 
+ * was replaced, or after an edge of the node was added or removed other than by 
+ * the connectivity model. In addition, the connections of nodes whose connectivity model is 
+ * time-varying (see {@link sinalgo.models.ConnectivityModel#isTimeVarying()}) are reevaluated
+ * in every round. 
+ * <p>
+ * The vicinity of a node is given by the possible neighbors returned by the node collection. 
+ * Thus, the connectivity model must not connect nodes that are not possible neighbors of each other,
+ * which is also required by the {@link sinalgo.models.ConnectivityModelHelper}. 
+ */
+public class ConnectivityChangeTracker {
+
+	// the nodes whose connections need to be reevaluated
+	private Node[] dirtyNodes = new Node[16];
+	private int numDirtyNodes = 0;
+	
+	// true if any node in the node collection may have a time-varying connectivity model
+	private boolean hasTimeVaryingModels = false;
+	
+	/**
+	 * Creates a new tracker and marks all nodes currently in the node collection
+	 * to be reevaluated.
+	 */
+	public ConnectivityChangeTracker() {
+		for(Node n : Runtime.nodes) {
+			n.connectivityChanged = false; // the node may be marked by a former tracker 
+			markNode(n);
+		}
+	}
+
+	/**
+	 * Reevaluates the connections of all nodes marked since the last call to this method,
+	 * and of all nodes with a time-varying connectivity model.
+	 */
+	public void updateConnections() {
+		if(hasTimeVaryingModels) {
+			for(Node n : Runtime.nodes) {
+				if(n.connectivityChanged || n.getConnectivityModel().isTimeVarying()) {
+					n.connectivityChanged = false;
+					n.updateConnections();
+				}
+			}
+			for(int i = 0; i < numDirtyNodes; i++) {
+				dirtyNodes[i] = null;
+			}
+		} else {
+			for(int i = 0; i < numDirtyNodes; i++) {
+				Node n = dirtyNodes[i];
+				dirtyNodes[i] = null;
+				if(n.connectivityChanged && n.holdInNodeCollection) { // the node may have been removed
+					n.connectivityChanged = false;
+					n.updateConnections();
+				}
+			}
+		}
+		numDirtyNodes = 0;
+	}
+	
+	/**
+	 * Marks a node to be reevaluated in the next round.
+	 * @param n The node whose connections may have changed.
+	 */
+	public void markNode(Node n) {
+		if(n.getConnectivityModel() != null && n.getConnectivityModel().isTimeVarying()) {
+			hasTimeVaryingModels = true;
+		}
+		if(n.connectivityChanged) {
+			return;
+		}
+		n.connectivityChanged = true;
+		if(numDirtyNodes == dirtyNodes.length) {
+			Node[] nodes = new Node[2 * numDirtyNodes];
+			System.arraycopy(dirtyNodes, 0, nodes, 0, numDirtyNodes);
+			dirtyNodes = nodes;
+		}
+		dirtyNodes[numDirtyNodes++] = n;
+	}
+
+	/**
+	 * Marks a node and all of its possible neighbors to be reevaluated in the next round.
+	 * The framework calls this method for a node that is added to the node collection.
+	 * @param n The node whose vicinity may have changed.
+	 */
+	public void markVicinity(Node n) {
+		markNodes(n, Runtime.nodes.getPossibleNeighborsEnumeration(n));
+	}
+	
+	/**
+	 * Marks a node that is being moved and all of its possible neighbors to be reevaluated 
+	 * in the next round. The framework calls this method before and after a node in the node 
+	 * collection changes its position. The node collection is not reorganized while the nodes
+	 * are being moved.
+	 * @param n The node whose vicinity may have changed.
+	 */
+	public void markVicinityOfMovingNode(Node n) {
+		markNodes(n, Runtime.nodes.getPossibleNeighborsEnumerationWhileMoving(n));
+	}
+	
+	/**
+	 * Marks a node and its possible neighbors to be reevaluated in the next round.
+	 * @param n The node
+	 * @param pNE The possible neighbors of the node
+	 */
+	private void markNodes(Node n, Enumeration<Node> pNE) {
+		markNode(n);
+		while(pNE.hasMoreElements()) {
+			markNode(pNE.nextElement());
+		}
+	}
+	
+	/**
+	 * Tests whether the current configuration allows to reevaluate only the connections
+	 * of the nodes whose neighborhood may have changed. 
+	 * @return True if the connections may be updated incrementally, otherwise false.
+	 */
+	public static boolean isApplicable() {
+		return Configuration.incrementalConnectivity;
+	}
+}
@@ -102,6 +102,18 @@ public class Global {
 	 */	
 	public static int numberOfMessagesOverAll = 0;
 	
+	/**
+	 * Global information about the number of packets sent in this round. A packet 
+	 * may carry several messages if <code>Configuration.coalesceMessages</code> is enabled,
+	 * otherwise, this is the same as the number of messages sent in this round. 
+	 */
+	public static int numberOfPacketsInThisRound = 0;
+	
+	/**
+	 * Global information about the number of packets sent in all previous rounds.
+	 */	
+	public static int numberOfPacketsOverAll = 0;
+	
 	/**
 	 * The current time of the simulation.
 	 * <p>
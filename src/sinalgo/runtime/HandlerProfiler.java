@@ -0,0 +1,298 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime;
+
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.messages.Inbox;
+import sinalgo.nodes.timers.Timer;
+
+
+/**
+ * Attributes the time spent in the handlers of the nodes to the node implementations,
+ * the message types and the timer types. 
+ * <p>
+ * For each node implementation, the profiler records the number of calls and the total
+ * time spent in preStep(), handleMessages(), handleNAckMessages() and postStep(), and in 
+ * the timers fired on the nodes. The time of a call to handleMessages() is 
+ * split among the messages in the inbox, such that each message type is assigned the 
+ * time spent on its messages. In asynchronous mode, each inbox holds a single message, 
+ * otherwise, all messages of a call are assigned the same share of the time. 
+ * <p>
+ * The times are measured with System.nanoTime() on the thread that executes the handler, as 
+ * querying the CPU time of the thread is more expensive than many handlers. 
+ * <p>
+ * The profiler is only used if <code>Configuration.profileHandlers</code> is enabled. Each thread 
+ * stepping nodes has its own profiler, the results of all threads are combined when printed. 
+ */
+public class HandlerProfiler {
+	
+	/**
+	 * The handlers whose execution time is measured.
+	 */
+	public enum Handler {
+		/** Node.preStep() */
+		PRE_STEP("preStep"),
+		/** Node.handleMessages() */
+		HANDLE_MESSAGES("handleMessages"),
+		/** Node.handleNAckMessages() */
+		HANDLE_NACK_MESSAGES("handleNAckMessages"),
+		/** Node.postStep() */
+		POST_STEP("postStep"),
+		/** Timer.fire() of the timers of a node */
+		TIMER("timers");
+		
+		private String methodName;
+		
+		private Handler(String methodName) {
+			this.methodName = methodName;
+		}
+	}
+	
+	// the profiler of each thread
+	private static ThreadLocal<HandlerProfiler> profilers = new ThreadLocal<HandlerProfiler>() {
+		protected HandlerProfiler initialValue() {
+			HandlerProfiler p = new HandlerProfiler();
+			allProfilers.add(p);
+			return p;
+		}
+	};
+	
+	// the profilers of all threads
+	private static Vector<HandlerProfiler> allProfilers = new Vector<HandlerProfiler>();
+	
+	// the number of calls and the total time, per handler and node class
+	private Map<Class<?>, long[]>[] handlerCosts;
+	
+	// the number of messages and the time spent handling them, per message class
+	private Map<Class<?>, long[]> messageCosts = new HashMap<Class<?>, long[]>();
+	
+	// the number of calls and the total time, per timer class
+	private Map<Class<?>, long[]> timerCosts = new HashMap<Class<?>, long[]>();
+	
+	// the classes of the messages in the inbox currently handled
+	private Vector<Class<?>> inboxClasses = new Vector<Class<?>>();
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private HandlerProfiler() {
+		handlerCosts = new Map[Handler.values().length];
+		for(int i = 0; i < handlerCosts.length; i++) {
+			handlerCosts[i] = new HashMap<Class<?>, long[]>();
+		}
+	}
+	
+	/**
+	 * @return The profiler of the current thread, null if <code>Configuration.profileHandlers</code> is disabled.
+	 */
+	public static HandlerProfiler getProfiler() {
+		if(!Configuration.profileHandlers) {
+			return null;
+		}
+		return profilers.get();
+	}
+	
+	/**
+	 * Assigns the time since <code>start</code> to a handler of a node. 
+	 * @param h The handler that was called.
+	 * @param n The node on which the handler was called.
+	 * @param start The value of System.nanoTime() before the handler was called.
+	 * @return The current value of System.nanoTime().
+	 */
+	public long add(Handler h, Node n, long start) {
+		long now = System.nanoTime();
+		add(handlerCosts[h.ordinal()], n.getClass(), 1, now - start);
+		return now;
+	}
+	
+	/**
+	 * Assigns the time since <code>start</code> to a timer.
+	 * @param t The timer that fired.
+	 * @param start The value of System.nanoTime() before the timer fired.
+	 * @return The current value of System.nanoTime().
+	 */
+	public long addTimer(Timer t, long start) {
+		long now = System.nanoTime();
+		Class<?> c = t.isNodeTimer() ? t.getTargetNode().getClass() : Global.customGlobal.getClass();
+		add(handlerCosts[Handler.TIMER.ordinal()], c, 1, now - start);
+		add(timerCosts, t.getClass(), 1, now - start);
+		return now;
+	}
+	
+	/**
+	 * Records the types of the messages in the inbox. Must be called before the inbox 
+	 * is passed to handleMessages().
+	 * @param inbox The inbox to be handled.
+	 */
+	public void prepareInbox(Inbox inbox) {
+		inboxClasses.clear();
+		while(inbox.hasNext()) {
+			inboxClasses.add(inbox.next().getClass());
+		}
+		inbox.reset();
+	}
+	
+	/**
+	 * Assigns the time since <code>start</code> to the handleMessages() method of 
+	 * a node and to the messages recorded by prepareInbox(). 
+	 * @param n The node that handled the messages.
+	 * @param start The value of System.nanoTime() before handleMessages() was called.
+	 * @return The current value of System.nanoTime().
+	 */
+	public long addMessages(Node n, long start) {
+		long now = System.nanoTime();
+		long time = now - start;
+		add(handlerCosts[Handler.HANDLE_MESSAGES.ordinal()], n.getClass(), 1, time);
+		int num = inboxClasses.size();
+		for(int i = 0; i < num; i++) {
+			// distribute the rest of the division over the first messages
+			add(messageCosts, inboxClasses.elementAt(i), 1, time / num + (i < time % num ? 1 : 0));
+		}
+		return now;
+	}
+	
+	private static void add(Map<Class<?>, long[]> map, Class<?> c, long calls, long time) {
+		long[] entry = map.get(c);
+		if(entry == null) {
+			entry = new long[2];
+			map.put(c, entry);
+		}
+		entry[0] += calls;
+		entry[1] += time;
+	}
+	
+	/**
+	 * A line of the profile table.
+	 */
+	private static class Row implements Comparable<Row> {
+		private String name;
+		private long calls;
+		private long time;
+		
+		private Row(String name, long[] entry) {
+			this.name = name;
+			this.calls = entry[0];
+			this.time = entry[1];
+		}
+		
+		public int compareTo(Row r) {
+			return time < r.time ? 1 : (time > r.time ? -1 : name.compareTo(r.name));
+		}
+	}
+	
+	/**
+	 * Combines the results of all threads into a single list of rows, sorted by 
+	 * decreasing total time.
+	 * @return The rows of the profile table.
+	 */
+	private static Vector<Row> getRows() {
+		HandlerProfiler sum = new HandlerProfiler();
+		synchronized(allProfilers) {
+			for(HandlerProfiler p : allProfilers) {
+				for(int i = 0; i < sum.handlerCosts.length; i++) {
+					for(Map.Entry<Class<?>, long[]> e : p.handlerCosts[i].entrySet()) {
+						add(sum.handlerCosts[i], e.getKey(), e.getValue()[0], e.getValue()[1]);
+					}
+				}
+				for(Map.Entry<Class<?>, long[]> e : p.messageCosts.entrySet()) {
+					add(sum.messageCosts, e.getKey(), e.getValue()[0], e.getValue()[1]);
+				}
+				for(Map.Entry<Class<?>, long[]> e : p.timerCosts.entrySet()) {
+					add(sum.timerCosts, e.getKey(), e.getValue()[0], e.getValue()[1]);
+				}
+			}
+		}
+		Vector<Row> rows = new Vector<Row>();
+		for(Handler h : Handler.values()) {
+			for(Map.Entry<Class<?>, long[]> e : sum.handlerCosts[h.ordinal()].entrySet()) {
+				rows.add(new Row(Global.toShortName(e.getKey().getName()) + "." + h.methodName, e.getValue()));
+			}
+		}
+		for(Map.Entry<Class<?>, long[]> e : sum.messageCosts.entrySet()) {
+			rows.add(new Row("message " + Global.toShortName(e.getKey().getName()), e.getValue()));
+		}
+		for(Map.Entry<Class<?>, long[]> e : sum.timerCosts.entrySet()) {
+			rows.add(new Row("timer " + Global.toShortName(e.getKey().getName()), e.getValue()));
+		}
+		Collections.sort(rows);
+		return rows;
+	}
+	
+	/**
+	 * Prints the handlers, message types and timer types with the highest total time.
+	 * The node handlers include the time of the messages and timers they handle, such that
+	 * the rows do not add up.
+	 * @param ps The stream to print to.
+	 * @param topN The maximum number of rows to print.
+	 */
+	public static void printTable(PrintStream ps, int topN) {
+		ps.print(getTable(topN));
+	}
+	
+	/**
+	 * Returns the table printed by printTable().
+	 * @param topN The maximum number of rows.
+	 * @return The table of the handlers with the highest total time.
+	 */
+	public static String getTable(int topN) {
+		Vector<Row> rows = getRows();
+		StringBuilder s = new StringBuilder();
+		s.append("Handler profile (top " + Math.min(topN, rows.size()) + " of " + rows.size() + ", by total time):\n");
+		s.append(String.format("  %12s %12s %12s  %s\n", "Total [ms]", "Calls", "Avg [us]", "Handler"));
+		for(int i = 0; i < rows.size() && i < topN; i++) {
+			Row r = rows.elementAt(i);
+			s.append(String.format("  %12.1f %12d %12.2f  %s\n", r.time / 1e6, r.calls, r.calls == 0 ? 0 : r.time / 1e3 / r.calls, r.name));
+		}
+		return s.toString();
+	}
+	
+	/**
+	 * Writes the profile table to the default log file. The framework calls 
+	 * this method when the application exits.
+	 */
+	public static void close() {
+		if(Configuration.profileHandlers && !allProfilers.isEmpty()) {
+			printTable(Global.log.getOutputStream(), Configuration.profileHandlersTopN);
+		}
+	}
+}
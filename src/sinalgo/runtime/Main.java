@@ -565,6 +565,9 @@ public class Main{
 	 * Framework specific cleanup; 
 	 */
 	private static void cleanup() {
+		// write the summary of the round profile
+		RoundProfiler.close();
+		HandlerProfiler.close();
 		// write the app config
 		AppConfig.getAppConfig().writeConfig();
 		// delete the temporary config file (with suffix .run)
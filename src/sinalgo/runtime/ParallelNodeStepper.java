@@ -0,0 +1,250 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime;
+
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.configuration.WrongConfigurationException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.tools.logging.LogL;
+
+
+/**
+ * Performs the step of all nodes of a synchronous round on a pool of worker threads.
+ * <p>
+ * While the nodes are stepped in parallel, the packets they send are not placed in
+ * the receive buffers of their destinations, but kept by the sender. Once all nodes
+ * have performed their step, the packets are handed to the destinations in the order
+ * in which the sequential runtime would have sent them. Thus, a message sent in round r
+ * is only available to its destination in round r+1, and each inbox holds its
+ * messages in the same order as in a sequential simulation. The message transmission 
+ * model and the reliability model are only asked for the deferred packets at this time,
+ * such that they draw from the shared random number generator in the same order as 
+ * in a sequential simulation.
+ * <p>
+ * The parallel step is only deterministic if the step of a node does not modify
+ * (or depend on concurrent modifications of) the state of other nodes, and does not 
+ * draw from the shared random number generator itself. It is not used when
+ * interference or NACK messages are enabled, as both features modify state
+ * of other nodes while stepping.
+ */
+public class ParallelNodeStepper {
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b><br>
+	 * True while the nodes perform their step in parallel. During this time, sent packets
+	 * are kept by the sender until all nodes have performed their step.
+	 */
+	public static boolean isStepping = false;
+
+	// the pool of worker threads, shared by all runtime threads
+	private static ForkJoinPool pool = null;
+
+	// the nodes of the current round, in the order of the node collection
+	private Node[] allNodes = new Node[0];
+
+	// the nodes to step, and the number of valid entries in 'nodes'
+	private Node[] nodes = null;
+	private int numNodes = 0;
+
+	// the minimal number of nodes a worker steps without splitting its range further
+	private int grainSize = 1;
+
+	/**
+	 * Creates a new stepper that executes the node steps on the configured
+	 * number of threads.
+	 */
+	public ParallelNodeStepper() {
+		if(pool == null || pool.getParallelism() != Configuration.synchronousStepThreads) {
+			if(pool != null) {
+				pool.shutdown(); // the idle workers terminate
+			}
+			pool = new ForkJoinPool(Configuration.synchronousStepThreads, new WorkerFactory(), null, false);
+		}
+	}
+	
+	/**
+	 * Creates the worker threads of the pool, which release their packet pool when 
+	 * they terminate, e.g. when they have been idle for a while. 
+	 */
+	private static class WorkerFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			return new Worker(pool);
+		}
+	}
+	
+	/**
+	 * A worker thread of the pool.
+	 */
+	private static class Worker extends ForkJoinWorkerThread {
+		private Worker(ForkJoinPool pool) {
+			super(pool);
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.ForkJoinWorkerThread#onTermination(java.lang.Throwable)
+		 */
+		protected void onTermination(Throwable exception) {
+			Packet.releasePoolOfThread();
+			super.onTermination(exception);
+		}
+	}
+
+	/**
+	 * Tests whether the current configuration allows to step the nodes in parallel.
+	 * @return True if the nodes may be stepped in parallel, otherwise false.
+	 */
+	public static boolean isApplicable() {
+		if(Configuration.synchronousStepThreads <= 1) {
+			return false;
+		}
+		if(Configuration.interference || Configuration.generateNAckMessages) {
+			if(LogL.HINTS) {
+				Global.log.logln("Hint: The nodes are stepped sequentially, as a parallel step is not supported when\n" +
+				                 "interference or generateNAckMessages is turned on.");
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Performs the step of all nodes currently in the node collection and
+	 * hands the packets sent during the step to their destinations.
+	 * @throws WrongConfigurationException If a node throws this exception in its step.
+	 */
+	public void step() throws WrongConfigurationException {
+		int size = Runtime.nodes.size();
+		if(allNodes.length < size) {
+			allNodes = new Node[size];
+		}
+		int num = 0;
+		for(Node n : Runtime.nodes) {
+			allNodes[num++] = n;
+		}
+		step(allNodes, num);
+		for(int i = 0; i < num; i++) {
+			allNodes[i] = null; // do not keep references to removed nodes
+		}
+	}
+	
+	/**
+	 * Performs the step of the given nodes and hands the packets sent during the
+	 * step to their destinations.
+	 * @param nodes The nodes to step. 
+	 * @param numNodes The number of nodes to step, starting at index 0 of <code>nodes</code>.
+	 * @throws WrongConfigurationException If a node throws this exception in its step.
+	 */
+	public void step(Node[] nodes, int numNodes) throws WrongConfigurationException {
+		this.nodes = nodes;
+		this.numNodes = numNodes;
+		// about 8 tasks per thread balance the load without creating too many tasks
+		grainSize = Math.max(1, numNodes / (8 * pool.getParallelism()));
+
+		isStepping = true;
+		try {
+			pool.invoke(new StepTask(0, numNodes));
+		} catch(WrappedConfigurationException e) {
+			throw e.wCE;
+		} finally {
+			isStepping = false;
+			this.nodes = null;
+		}
+
+		// deliver the packets in the same order as the sequential runtime
+		for(int i = 0; i < numNodes; i++) {
+			nodes[i].flushDeferredPackets();
+		}
+	}
+
+	/**
+	 * The task that steps a consecutive range of the nodes, splitting the
+	 * range if it is larger than the grain size.
+	 */
+	@SuppressWarnings("serial")
+	private class StepTask extends RecursiveAction {
+		private int from; // inclusive
+		private int to; // exclusive
+
+		private StepTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		protected void compute() {
+			if(to - from <= grainSize) {
+				boolean countBytes = RoundProfiler.isMeasuringAllocations();
+				long bytes = countBytes ? RoundProfiler.getThreadAllocatedBytes() : 0;
+				try {
+					for(int i = from; i < to; i++) {
+						nodes[i].step();
+					}
+				} catch(WrongConfigurationException e) {
+					throw new WrappedConfigurationException(e);
+				} finally {
+					if(countBytes) {
+						RoundProfiler.addWorkerAllocatedBytes(RoundProfiler.getThreadAllocatedBytes() - bytes);
+					}
+				}
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new StepTask(from, mid), new StepTask(mid, to));
+			}
+		}
+	}
+
+	/**
+	 * Carries a WrongConfigurationException thrown by a node out of the worker threads.
+	 */
+	@SuppressWarnings("serial")
+	private static class WrappedConfigurationException extends RuntimeException {
+		private WrongConfigurationException wCE;
+
+		private WrappedConfigurationException(WrongConfigurationException e) {
+			super(e);
+			wCE = e;
+		}
+	}
+}
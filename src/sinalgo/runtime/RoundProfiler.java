@@ -0,0 +1,493 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime;
+
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.edges.Edge;
+import sinalgo.nodes.edges.EdgePool;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.runtime.events.PacketEvent;
+import sinalgo.runtime.events.TimerEvent;
+import sinalgo.tools.logging.Logging;
+
+
+/**
+ * Measures the time spent in the different stages of each round, and records the 
+ * number of sent messages and packets and the sizes of the object pools after each round.
+ * <p>
+ * In batch mode, one record per round is written to the file <code>Configuration.profileFileName</code>
+ * in the log directory. The records are written as CSV, or as one JSON object per line if 
+ * the file name ends with '.json'. In asynchronous mode, a record covers all events whose 
+ * time lies in the same unit interval [r, r+1). When the application exits, a summary
+ * of all rounds is written to the default log file.
+ * <p>
+ * If <code>Configuration.profileAllocations</code> is enabled, the profiler additionally records
+ * the bytes allocated and the time spent in garbage collection in each stage, and the bytes 
+ * allocated per node in each round. The allocated bytes are counted for the runtime thread 
+ * and the threads stepping the nodes in parallel. A garbage collection is assigned to the stage 
+ * in which it has been noticed.
+ * <p>
+ * The profiler is only created if <code>Configuration.profileRounds</code> is enabled. 
+ */
+public class RoundProfiler {
+
+	/**
+	 * The stages of a round whose execution time is measured.
+	 */
+	public enum Stage {
+		/** CustomGlobal.preRound() */
+		PRE_ROUND("preRound", true),
+		/** Handling of the global timers */
+		GLOBAL_TIMERS("globalTimers", true),
+		/** Moving the nodes */
+		MOBILITY("mobility", true),
+		/** Updating the connections of the nodes */
+		CONNECTIVITY("connectivity", true),
+		/** Testing the packets for interference */
+		INTERFERENCE("interference", true),
+		/** The step of the nodes */
+		STEP("step", true),
+		/** CustomGlobal.postRound() */
+		POST_ROUND("postRound", true),
+		/** Retrieving the next event from the event queue */
+		EVENT_QUEUE("eventQueue", false),
+		/** Handling the events */
+		EVENTS("eventHandling", false),
+		/** Redrawing the GUI */
+		GUI("gui", true);
+		
+		private String columnName;
+		private boolean synchronous; // true if the stage exists in synchronous mode
+		
+		private Stage(String columnName, boolean synchronous) {
+			this.columnName = columnName;
+			this.synchronous = synchronous;
+		}
+		
+		/**
+		 * @return True if this stage is measured in the current simulation mode.
+		 */
+		private boolean isMeasured() {
+			return this == GUI ? Global.isGuiMode : synchronous != Global.isAsynchronousMode;
+		}
+	}
+	
+	private static RoundProfiler instance = null;
+	
+	private static Stage[] stages = Stage.values();
+	
+	// the bean to determine the allocated bytes per thread, null if allocations are not measured
+	private static com.sun.management.ThreadMXBean threadBean = null;
+	private static GarbageCollectorMXBean[] gcBeans = null;
+	
+	// the bytes allocated by the threads stepping the nodes in parallel, not yet assigned to a stage 
+	private static AtomicLong workerAllocatedBytes = new AtomicLong();
+	
+	// the bytes allocated by a call to getThreadAllocatedBytes() itself
+	private static long measurementBytes = 0;
+	
+	// the output stream to write the records to, null if no records are written
+	private PrintStream out = null;
+	private boolean json = false;
+	
+	// the data of the current record
+	private long round;
+	private long[] stageTime = new long[stages.length];
+	private long lastTime;
+	private int numNodes; // the number of nodes stepped, or the number of events handled
+	private int numMessagesAtStart;
+	private int numPacketsAtStart;
+	private boolean inRound = false;
+	private long[] stageBytes = new long[stages.length];
+	private long[] stageGcTime = new long[stages.length]; // in ms
+	private long lastBytes; 
+	private long lastGcTime;
+	private long gcCountAtStart;
+	private int nodesInRound; // the number of nodes in the simulation
+
+	// the summary over all rounds 
+	private long numRounds = 0;
+	private long[] totalStageTime = new long[stages.length];
+	private long totalNodes = 0;
+	private long[] totalStageBytes = new long[stages.length];
+	private long[] totalStageGcTime = new long[stages.length];
+	private long totalGcCount = 0;
+	private long totalNodeRounds = 0; // the sum of the number of nodes in the simulation over all rounds
+	
+	/**
+	 * Returns the profiler instance if the rounds are profiled. 
+	 * @return The profiler, null if <code>Configuration.profileRounds</code> is disabled.
+	 */
+	public static RoundProfiler getProfiler() {
+		if(instance == null && Configuration.profileRounds) {
+			instance = new RoundProfiler();
+		}
+		return instance;
+	}
+	
+	/**
+	 * Writes the summary of the profiled rounds to the default log file 
+	 * and closes the file with the round records. The framework calls this 
+	 * method when the application exits.
+	 */
+	public static void close() {
+		if(instance != null) {
+			instance.endRound();
+			instance.printSummary(Global.log.getOutputStream());
+			if(instance.out != null) {
+				instance.out.flush();
+			}
+		}
+	}
+	
+	private RoundProfiler() {
+		if(Configuration.profileAllocations) {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if(bean instanceof com.sun.management.ThreadMXBean && 
+			   ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+				threadBean = (com.sun.management.ThreadMXBean) bean;
+				threadBean.setThreadAllocatedMemoryEnabled(true);
+				List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+				gcBeans = beans.toArray(new GarbageCollectorMXBean[beans.size()]);
+				getThreadAllocatedBytes(); // warm up
+				long bytes = getThreadAllocatedBytes();
+				measurementBytes = Math.max(0, getThreadAllocatedBytes() - bytes);
+			} else {
+				Main.minorError("The allocations are not profiled, as this Java VM cannot measure \n" +
+				                "the bytes allocated by a thread.");
+			}
+		}
+		if(!Global.isGuiMode) {
+			json = Configuration.profileFileName.endsWith(".json");
+			out = Logging.getLogger(Configuration.profileFileName).getOutputStream();
+			if(!json) {
+				printCSVHeader();
+			}
+		}
+	}
+	
+	/**
+	 * Starts a new record. Must be called before the first stage of the round. 
+	 * @param time The current time, whose integer part is the round of the new record.
+	 */
+	public void beginRound(double time) {
+		if(inRound) {
+			endRound();
+		}
+		inRound = true;
+		round = (long) time;
+		for(int i = 0; i < stageTime.length; i++) {
+			stageTime[i] = 0;
+		}
+		numNodes = 0;
+		numMessagesAtStart = Global.numberOfMessagesOverAll;
+		numPacketsAtStart = Global.numberOfPacketsOverAll;
+		if(threadBean != null) {
+			for(int i = 0; i < stageBytes.length; i++) {
+				stageBytes[i] = 0;
+				stageGcTime[i] = 0;
+			}
+			nodesInRound = Runtime.nodes.size();
+			workerAllocatedBytes.set(0);
+			gcCountAtStart = getGcCount();
+			lastGcTime = getGcTime();
+			lastBytes = getThreadAllocatedBytes();
+		}
+		lastTime = System.nanoTime();
+	}
+	
+	/**
+	 * @return True if the bytes allocated by the threads are measured.
+	 */
+	public static boolean isMeasuringAllocations() {
+		return threadBean != null;
+	}
+	
+	/**
+	 * Returns the total number of bytes allocated by the current thread. 
+	 * Must only be called if allocations are measured.
+	 * @return The number of bytes allocated by the current thread since it started.
+	 */
+	public static long getThreadAllocatedBytes() {
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	/**
+	 * Adds bytes allocated by a thread stepping the nodes in parallel. The bytes are 
+	 * assigned to the next stage that ends. This method may be called concurrently.
+	 * @param bytes The difference of two calls to <code>getThreadAllocatedBytes()</code>.
+	 */
+	public static void addWorkerAllocatedBytes(long bytes) {
+		workerAllocatedBytes.addAndGet(Math.max(0, bytes - measurementBytes));
+	}
+	
+	/**
+	 * @return The total number of garbage collections so far.
+	 */
+	private static long getGcCount() {
+		long count = 0;
+		for(int i = 0; i < gcBeans.length; i++) { // avoid allocating an iterator
+			count += Math.max(0, gcBeans[i].getCollectionCount());
+		}
+		return count;
+	}
+	
+	/**
+	 * @return The total time spent in garbage collections so far, in milliseconds.
+	 */
+	private static long getGcTime() {
+		long time = 0;
+		for(int i = 0; i < gcBeans.length; i++) {
+			time += Math.max(0, gcBeans[i].getCollectionTime());
+		}
+		return time;
+	}
+
+	/**
+	 * Assigns the time passed since the end of the previous stage (or the begin of the round)
+	 * to the given stage.
+	 * @param s The stage that just ended.
+	 */
+	public void endStage(Stage s) {
+		if(threadBean != null) {
+			long gcTime = getGcTime();
+			stageGcTime[s.ordinal()] += gcTime - lastGcTime;
+			lastGcTime = gcTime;
+			long bytes = getThreadAllocatedBytes();
+			stageBytes[s.ordinal()] += Math.max(0, bytes - lastBytes - measurementBytes) + workerAllocatedBytes.getAndSet(0);
+			lastBytes = bytes;
+		}
+		long now = System.nanoTime();
+		stageTime[s.ordinal()] += now - lastTime;
+		lastTime = now;
+	}
+	
+	/**
+	 * Adds to the number of nodes stepped in this round (synchronous mode), or
+	 * to the number of events handled (asynchronous mode). 
+	 * @param num The number to add.
+	 */
+	public void addNodes(int num) {
+		numNodes += num;
+	}
+	
+	/**
+	 * Tests whether a record is open for a round that ended before the given time. 
+	 * @param time The current time.
+	 * @return True if the current record covers a round before the given time.
+	 */
+	public boolean isBeforeRound(double time) {
+		return inRound && (long) time > round;
+	}
+	
+	/**
+	 * Completes the current record and writes it to the profile file.
+	 */
+	public void endRound() {
+		if(!inRound) {
+			return;
+		}
+		inRound = false;
+		numRounds++;
+		totalNodes += numNodes;
+		for(int i = 0; i < stageTime.length; i++) {
+			totalStageTime[i] += stageTime[i];
+		}
+		long allocatedBytes = 0, gcTime = 0, gcCount = 0;
+		if(threadBean != null) {
+			for(int i = 0; i < stageBytes.length; i++) {
+				allocatedBytes += stageBytes[i];
+				gcTime += stageGcTime[i];
+				totalStageBytes[i] += stageBytes[i];
+				totalStageGcTime[i] += stageGcTime[i];
+			}
+			gcCount = getGcCount() - gcCountAtStart;
+			totalGcCount += gcCount;
+			totalNodeRounds += nodesInRound;
+		}
+		if(out == null) {
+			return;
+		}
+		// in synchronous mode, numberOfMessagesOverAll is only updated at the end of the round  
+		int numMessages = Global.isAsynchronousMode ? Global.numberOfMessagesOverAll - numMessagesAtStart : Global.numberOfMessagesInThisRound;
+		int numPackets = Global.isAsynchronousMode ? Global.numberOfPacketsOverAll - numPacketsAtStart : Global.numberOfPacketsInThisRound;
+		StringBuilder s = new StringBuilder(256);
+		if(json) {
+			s.append("{\"round\":").append(round);
+			for(Stage stage : stages) {
+				if(stage.isMeasured()) {
+					s.append(",\"").append(stage.columnName).append("\":").append(stageTime[stage.ordinal()]);
+				}
+			}
+			s.append(Global.isAsynchronousMode ? ",\"eventsHandled\":" : ",\"nodesStepped\":").append(numNodes);
+			s.append(",\"messagesSent\":").append(numMessages);
+			s.append(",\"packetsSent\":").append(numPackets);
+			s.append(",\"packetsOnTheFly\":").append(Packet.getNumPacketsOnTheFly());
+			s.append(",\"packetsRecycled\":").append(Packet.getNumFreedPackets());
+			s.append(",\"edgesOnTheFly\":").append(Edge.numEdgesOnTheFly);
+			s.append(",\"edgesRecycled\":").append(EdgePool.getNumFreedEdges());
+			if(Global.isAsynchronousMode) {
+				s.append(",\"packetEventsOnTheFly\":").append(PacketEvent.numPacketEventsOnTheFly);
+				s.append(",\"timerEventsOnTheFly\":").append(TimerEvent.numTimerEventsOnTheFly);
+				s.append(",\"eventQueueSize\":").append(Runtime.eventQueue.size());
+			}
+			if(threadBean != null) {
+				for(Stage stage : stages) {
+					if(stage.isMeasured()) {
+						s.append(",\"").append(stage.columnName).append("Bytes\":").append(stageBytes[stage.ordinal()]);
+						s.append(",\"").append(stage.columnName).append("GcMs\":").append(stageGcTime[stage.ordinal()]);
+					}
+				}
+				s.append(",\"allocatedBytes\":").append(allocatedBytes);
+				s.append(",\"bytesPerNode\":").append(nodesInRound == 0 ? 0 : allocatedBytes / nodesInRound);
+				s.append(",\"gcCount\":").append(gcCount);
+				s.append(",\"gcTimeMs\":").append(gcTime);
+			}
+			s.append('}');
+		} else {
+			s.append(round);
+			for(Stage stage : stages) {
+				if(stage.isMeasured()) {
+					s.append(',').append(stageTime[stage.ordinal()]);
+				}
+			}
+			s.append(',').append(numNodes);
+			s.append(',').append(numMessages);
+			s.append(',').append(numPackets);
+			s.append(',').append(Packet.getNumPacketsOnTheFly());
+			s.append(',').append(Packet.getNumFreedPackets());
+			s.append(',').append(Edge.numEdgesOnTheFly);
+			s.append(',').append(EdgePool.getNumFreedEdges());
+			if(Global.isAsynchronousMode) {
+				s.append(',').append(PacketEvent.numPacketEventsOnTheFly);
+				s.append(',').append(TimerEvent.numTimerEventsOnTheFly);
+				s.append(',').append(Runtime.eventQueue.size());
+			}
+			if(threadBean != null) {
+				for(Stage stage : stages) {
+					if(stage.isMeasured()) {
+						s.append(',').append(stageBytes[stage.ordinal()]);
+						s.append(',').append(stageGcTime[stage.ordinal()]);
+					}
+				}
+				s.append(',').append(allocatedBytes);
+				s.append(',').append(nodesInRound == 0 ? 0 : allocatedBytes / nodesInRound);
+				s.append(',').append(gcCount);
+				s.append(',').append(gcTime);
+			}
+		}
+		out.println(s);
+		if(Configuration.eagerFlush) {
+			out.flush();
+		}
+	}
+
+	/**
+	 * Writes the column names of the CSV file.
+	 */
+	private void printCSVHeader() {
+		StringBuilder s = new StringBuilder("round");
+		for(Stage stage : stages) {
+			if(stage.isMeasured()) {
+				s.append(',').append(stage.columnName);
+			}
+		}
+		s.append(Global.isAsynchronousMode ? ",eventsHandled" : ",nodesStepped");
+		s.append(",messagesSent,packetsSent,packetsOnTheFly,packetsRecycled,edgesOnTheFly,edgesRecycled");
+		if(Global.isAsynchronousMode) {
+			s.append(",packetEventsOnTheFly,timerEventsOnTheFly,eventQueueSize");
+		}
+		if(threadBean != null) {
+			for(Stage stage : stages) {
+				if(stage.isMeasured()) {
+					s.append(',').append(stage.columnName).append("Bytes");
+					s.append(',').append(stage.columnName).append("GcMs");
+				}
+			}
+			s.append(",allocatedBytes,bytesPerNode,gcCount,gcTimeMs");
+		}
+		out.println(s);
+	}
+	
+	/**
+	 * Prints the total and average time spent in each stage over all profiled rounds. 
+	 * @param ps The stream to print the summary to.
+	 */
+	public void printSummary(PrintStream ps) {
+		long total = 0;
+		for(long t : totalStageTime) {
+			total += t;
+		}
+		ps.print("\nRound profile over " + numRounds + " rounds:\n");
+		ps.print("  Stage        \t   Total [ms]\t   Avg [us/round]\t  Share\n");
+		for(Stage stage : stages) {
+			if(stage.isMeasured()) {
+				long t = totalStageTime[stage.ordinal()];
+				ps.printf("  %-13s\t%13.1f\t%17.1f\t%6.1f%%\n", stage.columnName, t / 1e6, 
+				          numRounds == 0 ? 0 : t / 1e3 / numRounds, total == 0 ? 0 : 100.0 * t / total);
+			}
+		}
+		ps.printf("  %-13s\t%13.1f\t%17.1f\n", "total", total / 1e6, numRounds == 0 ? 0 : total / 1e3 / numRounds);
+		ps.print("  " + (Global.isAsynchronousMode ? "Events handled: " : "Nodes stepped: ") + totalNodes + 
+		         (numRounds == 0 ? "" : " (" + (totalNodes / numRounds) + " per round)") + "\n");
+		if(threadBean != null) {
+			long totalBytes = 0, totalGcTime = 0;
+			ps.print("  Stage        \t Allocated [MB]\t   Avg [KB/round]\t    GC [ms]\n");
+			for(Stage stage : stages) {
+				if(stage.isMeasured()) {
+					long b = totalStageBytes[stage.ordinal()];
+					totalBytes += b;
+					totalGcTime += totalStageGcTime[stage.ordinal()];
+					ps.printf("  %-13s\t%15.1f\t%17.1f\t%11d\n", stage.columnName, b / 1048576.0, 
+					          numRounds == 0 ? 0 : b / 1024.0 / numRounds, totalStageGcTime[stage.ordinal()]);
+				}
+			}
+			ps.printf("  %-13s\t%15.1f\t%17.1f\t%11d\n", "total", totalBytes / 1048576.0, 
+			          numRounds == 0 ? 0 : totalBytes / 1024.0 / numRounds, totalGcTime);
+			ps.print("  Bytes allocated per node and round: " + (totalNodeRounds == 0 ? 0 : totalBytes / totalNodeRounds) + 
+			         ", garbage collections: " + totalGcCount + "\n");
+		}
+	}
+}
@@ -41,7 +41,6 @@ package sinalgo.runtime;
 import java.io.FileNotFoundException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Enumeration;
 import java.util.Vector;
 
 import sinalgo.configuration.AppConfig;
@@ -60,6 +59,7 @@ import sinalgo.models.Model;
 import sinalgo.models.ModelType;
 import sinalgo.models.ReliabilityModel;
 import sinalgo.nodes.Node;
+import sinalgo.nodes.NodeIncomingConnectionsList;
 import sinalgo.nodes.edges.Edge;
 import sinalgo.runtime.events.Event;
 import sinalgo.runtime.events.EventQueue;
@@ -92,6 +92,18 @@ public abstract class Runtime{
 	 */
 	public static EventQueue eventQueue = new EventQueue();
 	
+	/**
+	 * The scheduler that determines the nodes to step in synchronous mode, null 
+	 * if all nodes are stepped in each round. 
+	 */
+	public static ActiveNodeScheduler activeNodeScheduler = null;
+	
+	/**
+	 * The tracker of the nodes whose connections need to be reevaluated in synchronous mode, 
+	 * null if the connections of all nodes are reevaluated in each round.
+	 */
+	public static ConnectivityChangeTracker connectivityTracker = null;
+	
 	/**
 	 * The instance of the background map.
 	 */
@@ -197,7 +209,11 @@ public abstract class Runtime{
 					"In the asynchronous mode mobility is not allowed.");
 			Configuration.mobility = false;
 		}
-		
+
+		if(Configuration.synchronousStepThreads < 1) {
+			Main.fatalError("The configuration entry 'synchronousStepThreads' must be at least 1.");
+		}
+
 		int numberOfParameters = args.length;
 		for(int i = 0; i < numberOfParameters; i++) { 
 
@@ -425,6 +441,12 @@ public abstract class Runtime{
 	 */
 	public static void addNode(Node n){
 		nodes.addNode(n);
+		if(activeNodeScheduler != null) {
+			activeNodeScheduler.schedule(n, Global.currentTime);
+		}
+		if(connectivityTracker != null) {
+			connectivityTracker.markVicinity(n);
+		}
 		Global.customGlobal.nodeAddedEvent(n);
 		if(Global.isGuiMode){
 			try {
@@ -443,22 +465,22 @@ public abstract class Runtime{
 	 * This method removes a node from the collection and removes
 	 * all edges incident to this node. This method is called by the 
 	 * popup method from the node.
-	 * <p>This method is quite expensive, as it loops over all nodes
-	 * in the network to test for nodes that may maintain a connection
-	 * to this node. 
+	 * <p>The edges to this node are found through the incoming connections 
+	 * of the node, such that only the actual in-neighbors are visited. 
 	 *
 	 * @param n The node to remove.
 	 */
 	public static void removeNode(Node n){
 		// remove the outgoing connections from neighbor to this nodes
-		// TODO: This is really expensive! Can't we have a better data structure?
-		//       The problem so far is the 'getRandomNode' method
-		Enumeration<Node> nodeEnumer = nodes.getNodeEnumeration();
-		while(nodeEnumer.hasMoreElements()){
-			Node node = nodeEnumer.nextElement();
-			Edge e = node.outgoingConnections.remove(node, n); // does only remove it it really exists
+		NodeIncomingConnectionsList incoming = n.incomingConnections;
+		while(incoming.size() > 0) {
+			Edge in = incoming.elementAt(incoming.size() - 1);
+			Node node = in.startNode;
+			Edge e = node.outgoingConnections.remove(node, n); // also removes the edge from the incoming connections
 			if(e != null) {
 				e.free();
+			} else {
+				incoming.remove(in); // not held by the outgoing connections of its start node
 			}
 		}
 		n.outgoingConnections.removeAndFreeAllEdges();
@@ -483,6 +505,9 @@ public abstract class Runtime{
 	public static void removeEdge(Edge edge){
 		edge.removeEdgeFromGraph(); // invalidate, does not free the edge
 		edge.startNode.outgoingConnections.remove(edge.startNode, edge.endNode); // remove the edge from the list of outgoing connections from this node
+		if(connectivityTracker != null) {
+			connectivityTracker.markNode(edge.startNode); // the connectivity model decides whether the edge persists
+		}
 		edge.free();
 	}
 	
@@ -589,6 +614,22 @@ public abstract class Runtime{
 	 * it sets its percentage.
 	 */
 	public synchronized void createNodes() {
+		// look up the constructors of the models only once
+		Constructor<?>[] modelConstructors = new Constructor<?>[numSpecifiedModels];
+		for(int k=0; k<numSpecifiedModels; k++) {
+			try {
+				// NOTE: we could also call newInstance() on the class-object. But this would not encapsulate 
+				// exceptions that may be thrown in the constructor.
+				modelConstructors[k] = models.elementAt(k).second.getConstructor();
+			} catch (SecurityException e) {
+				Main.fatalError("Cannot generate instance of the model'" + modelNames[k] + "' " +
+				                "(Probably not sufficient security permissions.):\n" + e);
+			} catch (NoSuchMethodException e) {
+				Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
+				                "(The model needs a public constructor w/o parameters.):\n" + e);
+			}
+		}
+		
 		// Create the nodes
 		for(int j=0; j< numNodes; j++) {
 			
@@ -607,10 +648,7 @@ public abstract class Runtime{
 			for(int k=0; k<numSpecifiedModels; k++) {
 				Tuple<ModelType, Class<?>> tmp = models.elementAt(k);
 				try {
-					// NOTE: we could also call newInstance() on the class-object. But this would not encapsulate 
-					// exceptions that may be thrown in the constructor.
-					Constructor<?> constructor = tmp.second.getConstructor();
-					Model m = (Model) constructor.newInstance();
+					Model m = (Model) modelConstructors[k].newInstance();
 					m.setParamString(modelParams[k]); // set the parameter string for this model
 					switch(tmp.first) {
 					case ConnectivityModel: {
@@ -635,12 +673,6 @@ public abstract class Runtime{
 				} catch(InstantiationException e) {
 					Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
 					                "(The model needs a public constructor w/o parameters.):\n" + e);
-				} catch (SecurityException e) {
-					Main.fatalError("Cannot generate instance of the model'" + modelNames[k] + "' " +
-					                "(Probably not sufficient security permissions.):\n" + e);
-				} catch (NoSuchMethodException e) {
-					Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
-					                "(The model needs a public constructor w/o parameters.):\n" + e);
 				} catch (IllegalArgumentException e) {
 					Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
 					                "(The model needs a public constructor w/o parameters.):\n" + e);
@@ -42,6 +42,7 @@ import java.util.Date;
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.WrongConfigurationException;
 import sinalgo.nodes.Node;
+import sinalgo.nodes.messages.Packet;
 import sinalgo.tools.logging.LogL;
 
 
@@ -83,10 +84,52 @@ public class SynchronousRuntimeThread extends Thread {
 	 * @see java.lang.Runnable#run()
 	 */
 	public void run(){
+		try {
+			simulate();
+		} finally {
+			Packet.releasePoolOfThread(); // this thread does not use its packet pool anymore
+		}
+	}
+	
+	/**
+	 * Performs the simulation of this thread.
+	 */
+	private void simulate() {
 		Global.isRunning = true;
 		
 		Global.startTime = new Date();
 		
+		// Step the nodes on several threads, if configured so
+		ParallelNodeStepper parallelStepper = null;
+		if(ParallelNodeStepper.isApplicable()) {
+			parallelStepper = new ParallelNodeStepper();
+		}
+		
+		// Only step the nodes that have some work, if configured so
+		ActiveNodeScheduler scheduler = null;
+		if(ActiveNodeScheduler.isApplicable()) {
+			scheduler = new ActiveNodeScheduler();
+		}
+		Runtime.activeNodeScheduler = scheduler;
+		
+		// Only reevaluate the connections that may have changed, if configured so
+		ConnectivityChangeTracker connectivityTracker = null;
+		if(ConnectivityChangeTracker.isApplicable()) {
+			connectivityTracker = new ConnectivityChangeTracker();
+		}
+		Runtime.connectivityTracker = connectivityTracker;
+		
+		RoundProfiler profiler = RoundProfiler.getProfiler(); // null if the rounds are not profiled
+		
+		boolean fastForward = Configuration.fastForwardQuiescentRounds;
+		if(fastForward && (Configuration.mobility || Configuration.interference || Configuration.generateNAckMessages)) {
+			if(LogL.HINTS) {
+				Global.log.logln("Hint: Quiescent rounds are not skipped, as this is not supported when\n" +
+				                 "mobility, interference or generateNAckMessages is turned on.");
+			}
+			fastForward = false;
+		}
+		
 		for(long i = 0; i < numberOfRounds; i++){
 			// In GUI-mode, check whether ABORT was pressed.
 			if(runtime != null && runtime.abort){
@@ -100,9 +143,20 @@ public class SynchronousRuntimeThread extends Thread {
 			
 			Global.startTimeOfRound = new Date();
 			Global.numberOfMessagesInThisRound = 0;
+			Global.numberOfPacketsInThisRound = 0;
+			
+			if(profiler != null) {
+				profiler.beginRound(Global.currentTime);
+			}
 
 			Global.customGlobal.preRound();
+			if(profiler != null) {
+				profiler.endStage(RoundProfiler.Stage.PRE_ROUND);
+			}
 			Global.customGlobal.handleGlobalTimers();
+			if(profiler != null) {
+				profiler.endStage(RoundProfiler.Stage.GLOBAL_TIMERS);
+			}
 			
 			//Mobility is performed in a separate iteration over all nodes to avoid inconsistencies.			
 			if(Configuration.mobility){
@@ -110,22 +164,41 @@ public class SynchronousRuntimeThread extends Thread {
 					n.setPosition(n.getMobilityModel().getNextPos(n));
 				}
 			}
+			if(profiler != null) {
+				profiler.endStage(RoundProfiler.Stage.MOBILITY);
+			}
 
 			// Before the nodes perform their step, the entire network graph is updated
 			// such that all nodes see the same network when they perform their step.
-			for(Node n : Runtime.nodes) {
-				n.updateConnections();
+			if(connectivityTracker != null) {
+				connectivityTracker.updateConnections();
+			} else {
+				for(Node n : Runtime.nodes) {
+					n.updateConnections();
+				}
+			}
+			if(profiler != null) {
+				profiler.endStage(RoundProfiler.Stage.CONNECTIVITY);
 			}
 
 			// Test all messages still being sent for interference
 			if(Configuration.interference) {
 				Runtime.packetsInTheAir.testForInterference();
 			}
+			if(profiler != null) {
+				profiler.endStage(RoundProfiler.Stage.INTERFERENCE);
+			}
 			
 			// Perform the step for each node
 			try{
-				for(Node n : Runtime.nodes) {
-					n.step();
+				if(scheduler != null) {
+					scheduler.step(parallelStepper);
+				} else if(parallelStepper != null) {
+					parallelStepper.step();
+				} else {
+					for(Node n : Runtime.nodes) {
+						n.step();
+					}
 				}
 			} catch(WrongConfigurationException wCE){
 				Main.minorError(wCE); // in gui, a popup is shown. in batch, exits.
@@ -136,8 +209,15 @@ public class SynchronousRuntimeThread extends Thread {
 				Global.isRunning = false;
 				return;
 			}
+			if(profiler != null) {
+				profiler.endStage(RoundProfiler.Stage.STEP);
+				profiler.addNodes(scheduler != null ? scheduler.getNumberOfActiveNodes() : Runtime.nodes.size());
+			}
 			
 			Global.customGlobal.postRound();
+			if(profiler != null) {
+				profiler.endStage(RoundProfiler.Stage.POST_ROUND);
+			}
 			
 			if(Global.isGuiMode) { //redraw the graph all 'refreshRate' Steps except the last
 				if((i%refreshRate) == (refreshRate-1)){
@@ -146,6 +226,9 @@ public class SynchronousRuntimeThread extends Thread {
 					}
 				}
 				runtime.getGUI().setRoundsPerformed((int)(Global.currentTime));
+				if(profiler != null) {
+					profiler.endStage(RoundProfiler.Stage.GUI);
+				}
 			}
 	
 			// test whether the application should exit
@@ -166,13 +249,37 @@ public class SynchronousRuntimeThread extends Thread {
 				Main.exitApplication(); // exit the application
 			}
 			
+			if(profiler != null) {
+				profiler.endRound();
+			}
 			Global.numberOfMessagesOverAll += Global.numberOfMessagesInThisRound;
+			Global.numberOfPacketsOverAll += Global.numberOfPacketsInThisRound;
+			Packet.getNumPacketsOnTheFly(); // refreshes the deprecated counter Packet.numPacketsOnTheFly
 			
 			if(LogL.ROUND_DETAIL){
 				Global.log.logln("Round "+(Global.currentTime)+" finished");
 				Global.log.logln("In this round "+Global.numberOfMessagesInThisRound+" Messages were sent");
+				if(Configuration.coalesceMessages) {
+					Global.log.logln("In this round "+Global.numberOfPacketsInThisRound+" Packets were sent");
+				}
 				Global.log.logln("Overall "+Global.numberOfMessagesOverAll+" Messages were sent\n");
 			}
+			
+			// skip the following rounds if nothing happens in them
+			if(fastForward && i < numberOfRounds - 1) {
+				long skip = getNumberOfQuiescentRounds(scheduler);
+				if(skip > 0) {
+					skip = Math.min(skip, numberOfRounds - 1 - i);
+					Global.currentTime += skip;
+					if(skip % 2 == 1) {
+						Global.isEvenRound = !Global.isEvenRound;
+					}
+					i += skip;
+					if(LogL.ROUND_DETAIL){
+						Global.log.logln("Skipped " + skip + " quiescent rounds\n");
+					}
+				}
+			}
 		}
 		
 		if(Global.isGuiMode) {
@@ -189,4 +296,36 @@ public class SynchronousRuntimeThread extends Thread {
 		}
 		Global.isRunning = false;
 	}
+	
+	/**
+	 * Determines how many of the rounds following the current round may be skipped 
+	 * because no message arrives, no timer fires, and neither any node nor the 
+	 * CustomGlobal have requested to be called in these rounds.
+	 * @param scheduler The scheduler of the active nodes, null if all nodes are stepped in each round. 
+	 * @return The number of rounds that may be skipped. 
+	 */
+	private long getNumberOfQuiescentRounds(ActiveNodeScheduler scheduler) {
+		double next = Global.customGlobal.getNextWakeRound();
+		if(!Global.customGlobal.globalTimers.isEmpty()) {
+			next = Math.min(next, Global.customGlobal.globalTimers.getEarliestFireTime());
+		}
+		if(scheduler != null) {
+			next = Math.min(next, scheduler.getNextRound());
+		} else {
+			for(Node n : Runtime.nodes) {
+				if(next <= Global.currentTime + 1) {
+					return 0; // something happens in the next round
+				}
+				next = Math.min(next, n.getNextEventTime());
+			}
+		}
+		if(next <= Global.currentTime + 1) {
+			return 0;
+		}
+		if(next == Double.MAX_VALUE) { // nothing happens anymore
+			return Long.MAX_VALUE;
+		}
+		// an event at time t is handled in round ceil(t) 
+		return (long) Math.ceil(next) - (long) Global.currentTime - 1;
+	}
 }
@@ -0,0 +1,314 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.events;
+
+
+import java.util.Iterator;
+
+/**
+ * Stores the events in a calendar queue (R. Brown, 1988). The time axis is divided into
+ * buckets of equal width, and the buckets are reused cyclically, like the days of a 
+ * calendar year. Each bucket holds its events sorted. As long as the bucket width matches 
+ * the distribution of the execution times, adding and removing an event takes O(1) 
+ * expected time.
+ * <p>
+ * The number of buckets grows and shrinks with the number of events, and the bucket 
+ * width is then adapted to three times the average time between two events. This suits
+ * the transmission models that deliver the messages after a constant or a bounded random 
+ * time, where the pending events are spread evenly over a short time interval. Events
+ * with the same execution time always share the same bucket, and are appended to the
+ * bucket in the order of their creation. 
+ * <p>
+ * The iterator sorts a copy of all events and thus takes O(n log n) time.
+ */
+public class CalendarEventStorage extends EventStorageInterface {
+
+	private Bucket[] buckets;
+	private int mask; // the number of buckets - 1, the number of buckets is a power of 2
+	private double width = 1; // the time covered by a bucket
+	private int size = 0;
+
+	// the bucket where the search for the next event starts, and the number of its current interval 
+	private int current = 0; 
+	private long currentSlot = 0;
+	
+	/**
+	 * Creates a new, empty calendar queue.
+	 */
+	public CalendarEventStorage() {
+		init(16, 1, 0);
+	}
+	
+	/**
+	 * Allocates the buckets.
+	 * @param numBuckets The number of buckets, a power of 2.
+	 * @param width The time covered by each bucket.
+	 * @param start The time from which on the next event is searched. 
+	 */
+	private void init(int numBuckets, double width, double start) {
+		buckets = new Bucket[numBuckets];
+		for(int i = 0; i < numBuckets; i++) {
+			buckets[i] = new Bucket();
+		}
+		mask = numBuckets - 1;
+		this.width = width;
+		setCurrent(start);
+	}
+	
+	/**
+	 * Sets the search for the next event to start at the bucket covering the given time.
+	 * @param time The time from which on the next event is searched.
+	 */
+	private void setCurrent(double time) {
+		currentSlot = (long) (time / width);
+		current = (int) (currentSlot & mask);
+	}
+	
+	/**
+	 * @param time An execution time.
+	 * @return The bucket holding the events with the given execution time. 
+	 */
+	private Bucket getBucket(double time) {
+		return buckets[(int) ((long) (time / width) & mask)];
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#add(sinalgo.runtime.events.Event)
+	 */
+	public void add(Event e) {
+		getBucket(e.time).add(e);
+		size++;
+		if((long) (e.time / width) < currentSlot) { // the event executes before the search position
+			setCurrent(e.time);
+		}
+		if(size > 2 * buckets.length) {
+			resize(2 * buckets.length);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#poll()
+	 */
+	public Event poll() {
+		if(size == 0) {
+			return null;
+		}
+		// search the current year for the bucket holding the next event
+		Bucket b = null;
+		for(int i = 0; i <= mask; i++) {
+			Bucket c = buckets[current];
+			if(c.size > 0 && (long) (c.first().time / width) <= currentSlot) {
+				b = c;
+				break;
+			}
+			current = (current + 1) & mask;
+			currentSlot++;
+		}
+		if(b == null) { // the events are sparse: directly search for the next event 
+			Event min = null;
+			for(Bucket c : buckets) {
+				if(c.size > 0 && (min == null || before(c.first(), min))) {
+					min = c.first();
+				}
+			}
+			setCurrent(min.time);
+			b = buckets[current];
+		}
+		Event e = b.removeFirst();
+		size--;
+		if(size < buckets.length / 2 && buckets.length > 16) {
+			resize(buckets.length / 2);
+		}
+		return e;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#remove(sinalgo.runtime.events.Event)
+	 */
+	public boolean remove(Event e) {
+		if(!getBucket(e.time).remove(e)) {
+			return false;
+		}
+		size--;
+		return true;
+	}
+	
+	/**
+	 * Redistributes the events to a new set of buckets, whose width is adapted to 
+	 * the current events.
+	 * @param numBuckets The new number of buckets, a power of 2.
+	 */
+	private void resize(int numBuckets) {
+		Bucket[] old = buckets;
+		double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+		for(Bucket b : old) {
+			if(b.size > 0) {
+				min = Math.min(min, b.first().time);
+				max = Math.max(max, b.last().time);
+			}
+		}
+		double w = width;
+		if(size > 1 && max > min) {
+			w = 3 * (max - min) / (size - 1);
+		}
+		init(numBuckets, w, size > 0 ? min : currentSlot * width);
+		for(Bucket b : old) {
+			for(int i = 0; i < b.size; i++) {
+				Event e = b.get(i);
+				getBucket(e.time).add(e);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#size()
+	 */
+	public int size() {
+		return size;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#clear()
+	 */
+	public void clear() {
+		init(16, width, currentSlot * width);
+		size = 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#iterator()
+	 */
+	public Iterator<Event> iterator() {
+		Event[] copy = new Event[size];
+		int num = 0;
+		for(Bucket b : buckets) {
+			for(int i = 0; i < b.size; i++) {
+				copy[num++] = b.get(i);
+			}
+		}
+		return sortedIterator(copy);
+	}
+	
+	/**
+	 * The sorted events of a bucket, stored in a circular array. 
+	 */
+	private static class Bucket {
+		private Event[] events = new Event[4];
+		private int head = 0; // the index of the first event
+		private int size = 0;
+		
+		/**
+		 * @param i The position of the event in this bucket.
+		 * @return The event at the given position.
+		 */
+		private Event get(int i) {
+			return events[(head + i) & (events.length - 1)];
+		}
+		
+		private Event first() {
+			return events[head];
+		}
+		
+		private Event last() {
+			return get(size - 1);
+		}
+		
+		private Event removeFirst() {
+			Event e = events[head];
+			events[head] = null;
+			head = (head + 1) & (events.length - 1);
+			size--;
+			return e;
+		}
+		
+		/**
+		 * Inserts an event at its position. Events are mostly added at the end, 
+		 * thus the position is searched from the back.  
+		 * @param e The event to add.
+		 */
+		private void add(Event e) {
+			if(size == events.length) {
+				Event[] a = new Event[2 * events.length];
+				for(int i = 0; i < size; i++) {
+					a[i] = get(i);
+				}
+				events = a;
+				head = 0;
+			}
+			int m = events.length - 1;
+			int i = size;
+			while(i > 0) {
+				Event p = events[(head + i - 1) & m];
+				if(!before(e, p)) {
+					break;
+				}
+				events[(head + i) & m] = p;
+				i--;
+			}
+			events[(head + i) & m] = e;
+			size++;
+		}
+		
+		/**
+		 * Removes an event from this bucket.
+		 * @param e The event to remove.
+		 * @return True if the event was contained in this bucket, otherwise false.
+		 */
+		private boolean remove(Event e) {
+			// binary search for the position of the event 
+			int lo = 0, hi = size - 1;
+			while(lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				Event m = get(mid);
+				if(m == e) {
+					int mask = events.length - 1;
+					for(int i = mid; i < size - 1; i++) {
+						events[(head + i) & mask] = events[(head + i + 1) & mask];
+					}
+					events[(head + size - 1) & mask] = null;
+					size--;
+					return true;
+				} else if(before(m, e)) {
+					lo = mid + 1;
+				} else {
+					hi = mid - 1;
+				}
+			}
+			return false;
+		}
+	}
+}
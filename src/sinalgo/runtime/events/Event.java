@@ -53,6 +53,12 @@ public abstract class Event implements DoublyLinkedListEntry {
 	long id = 0;
 	protected static long nextId = 1;
 	
+	// the index of this event in the HeapEventStorage, -1 if this event is not stored in a heap 
+	int queueIndex = -1;
+	
+	// true while this event is stored in the event queue
+	boolean queued = false;
+	
 	/**
 	 * Returns a string representation of the time when this event
 	 * executes, truncated to the given number of digits.  
@@ -37,23 +37,43 @@
 package sinalgo.runtime.events;
 
 
-import java.util.Comparator;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.AbstractCollection;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.NoSuchElementException;
-import java.util.TreeSet;
 import java.util.Vector;
 
+import sinalgo.configuration.Configuration;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.edges.Edge;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.Main;
 
 /**
  * The queue that stores the events of the asynchronous mode. The entries (events) are sorted according to 
  * their execution time so that the first node in the list is the next to execute.
+ * <p>
+ * The events are held by the EventStorageInterface implementation given by 
+ * <code>Configuration.eventStorage</code>. 
+ * <p>
+ * When a node or an edge is removed for the first time, the queue creates an index from 
+ * the node IDs and edge IDs to their pending events, such that the events of a removed node 
+ * or edge are found without iterating over all events. The index is not updated when an event
+ * leaves the queue. Instead, such entries are recognized as outdated and skipped, and removed
+ * whenever an index list has doubled in size.
  */
-@SuppressWarnings("serial")
-public class EventQueue extends TreeSet<Event> {
+public class EventQueue extends AbstractCollection<Event> {
 	
 	private Vector<EventQueueListener> listeners = new Vector<EventQueueListener>(5);
+	private int numPendingChanges = 0; // the number of changes the listeners have not been notified about
+	
+	private EventStorageInterface storage;
+	
+	// the events per node ID (receiver or sender) and edge ID, null until the index is needed
+	private HashMap<Integer, EventIndexList> nodeIndex = null;
+	private HashMap<Long, EventIndexList> edgeIndex = null;
+	private int sweepIndexAt = 0; // the number of index lists at which lists without valid entries are removed
 	
 	/**
 	 * The number of events that have been taken out of the eventQueue. Gets automatically
@@ -62,10 +82,44 @@ public class EventQueue extends TreeSet<Event> {
 	public static int eventNumber = 0;
 	
 	/**
-	 * The constructor for the EventQueue. Constructs a TreeSet with the correct Comparator.
+	 * The constructor for the EventQueue. Creates the event storage specified in the configuration file.
 	 */
 	public EventQueue(){
-		super(new EventComparator());
+		storage = createEventStorage();
+	}
+	
+	/**
+	 * Creates a new event storage of the type specified in the configuration file.
+	 * @return The new event storage.
+	 */
+	private static EventStorageInterface createEventStorage() {
+		String name = Configuration.eventStorage;
+		if(name.indexOf('.') < 0) { // short name of an implementation provided by the framework 
+			name = "sinalgo.runtime.events." + name;
+		}
+		EventStorageInterface result = null;
+		try {
+			Class<?> c = Class.forName(name);
+			Constructor<?> cons = c.getConstructor();
+			result = (EventStorageInterface) cons.newInstance();
+		} catch (ClassNotFoundException e) {
+			Main.fatalError("Cannot find the class " + name + " which contains the implementation for the event storage. Please check the eventStorage field in the config file.");
+		} catch (SecurityException e) {
+			Main.fatalError("Cannot generate the event storage object due to a security exception:\n\n" + e.getMessage());
+		} catch (NoSuchMethodException e) {
+			Main.fatalError("The event storage " + name + " must provide a constructor taking no arguments.\n\n" + e.getMessage());
+		} catch (IllegalArgumentException e) {
+			Main.fatalError("The event storage " + name + " must provide a constructor taking no arguments.\n\n" + e.getMessage());
+		} catch (InstantiationException e) {
+			Main.fatalError("Classes usable as event storage must be instantiable classes, i.e. no interfaces and not abstract.\n\n" + e.getMessage()); 
+		} catch (IllegalAccessException e) {
+			Main.fatalError("Cannot generate the event storage object due to illegal access:\n\n" + e.getMessage());
+		} catch (InvocationTargetException e) {
+			Main.fatalError("Exception while instanciating " + name + ":\n\n" + e.getCause().getMessage());
+		} catch (ClassCastException e) {
+			Main.fatalError("The class " + name + " is not an event storage, it must extend EventStorageInterface.");
+		}
+		return result;
 	}
 	
 	/**
@@ -74,17 +128,13 @@ public class EventQueue extends TreeSet<Event> {
 	 * @return The next event in the queue, null if there is none.
 	 */
 	public Event getNextEvent(){
-		try{
-			Event e = this.first();
-			this.remove(e);
+		Event e = storage.poll();
+		if(e != null) {
+			e.queued = false;
 			eventNumber ++;
-			notifyListeners();
-			return e;
-		}
-		catch(NoSuchElementException nSEE){
-			notifyListeners();
-			return null;
 		}
+		changed();
+		return e;
 	}
 	
 	/**
@@ -93,8 +143,122 @@ public class EventQueue extends TreeSet<Event> {
 	 * @param e The event to add to the queue.
 	 */
 	public void insert(Event e){
-		this.add(e);
-		notifyListeners();
+		add(e);
+		changed();
+	}
+	
+	/**
+	 * Adds an event to the queue without notifying the listeners.
+	 * @param e The event to add to the queue.
+	 * @return Always true.
+	 */
+	public boolean add(Event e) {
+		storage.add(e);
+		e.queued = true;
+		if(nodeIndex != null) {
+			addToIndex(e);
+		}
+		return true;
+	}
+	
+	/**
+	 * Removes an event from the queue without notifying the listeners
+	 * and without freeing the event.
+	 * @param o The event to remove.
+	 * @return True if the event was contained in the queue, otherwise false.
+	 */
+	public boolean remove(Object o) {
+		if(o instanceof Event && storage.remove((Event) o)) {
+			((Event) o).queued = false;
+			return true;
+		}
+		return false;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	public int size() {
+		return storage.size();
+	}
+	
+	/**
+	 * Removes all events from the queue without notifying the listeners 
+	 * and without freeing the events.
+	 */
+	public void clear() {
+		storage.clear();
+		nodeIndex = null;
+		edgeIndex = null;
+	}
+	
+	/**
+	 * Creates the index from the node and edge IDs to the events currently in the queue.
+	 */
+	private void createIndex() {
+		nodeIndex = new HashMap<Integer, EventIndexList>();
+		edgeIndex = new HashMap<Long, EventIndexList>();
+		for(Event e : storage) {
+			addToIndex(e);
+		}
+		sweepIndexAt = Math.max(64, 2 * (nodeIndex.size() + edgeIndex.size()));
+	}
+	
+	/**
+	 * Adds an event to the lists of its node, the sender of its packet, and the edge of its packet. 
+	 * @param e The event to add to the index.
+	 */
+	private void addToIndex(Event e) {
+		Node n = e.getEventNode();
+		if(n != null) {
+			getIndexList(nodeIndex, n.ID).add(e);
+		}
+		if(e instanceof PacketEvent) {
+			PacketEvent pe = (PacketEvent) e;
+			if(pe.packet.origin != n) {
+				getIndexList(nodeIndex, pe.packet.origin.ID).add(e);
+			}
+			if(pe.packet.edge != null) {
+				getIndexList(edgeIndex, pe.packet.edge.getID()).add(e);
+			}
+		}
+		if(nodeIndex.size() + edgeIndex.size() >= sweepIndexAt) {
+			sweepIndex(nodeIndex);
+			sweepIndex(edgeIndex);
+			sweepIndexAt = Math.max(64, 2 * (nodeIndex.size() + edgeIndex.size()));
+		}
+	}
+	
+	/**
+	 * Returns the index list for a given key, and creates it if it does not yet exist. 
+	 * @param <K> The type of the key.
+	 * @param index The index.
+	 * @param key The node or edge ID.
+	 * @return The index list for the given key.
+	 */
+	private static <K> EventIndexList getIndexList(HashMap<K, EventIndexList> index, K key) {
+		EventIndexList l = index.get(key);
+		if(l == null) {
+			l = new EventIndexList();
+			index.put(key, l);
+		}
+		return l;
+	}
+	
+	/**
+	 * Removes the lists without valid entries from an index, such that the index
+	 * does not grow with the number of edges that ever carried a message.
+	 * @param index The index to sweep.
+	 */
+	private static void sweepIndex(HashMap<?, EventIndexList> index) {
+		Iterator<EventIndexList> it = index.values().iterator();
+		while(it.hasNext()) {
+			EventIndexList l = it.next();
+			l.compact();
+			if(l.size == 0) {
+				it.remove();
+			}
+		}
 	}
 	
 	/**
@@ -109,12 +273,18 @@ public class EventQueue extends TreeSet<Event> {
 	public void removeAllEventsForThisNode(Node n){
 		boolean changed = false;
 		
-		Iterator<Event> eventIter = iterator();
-		while(eventIter.hasNext()){
-			Event e = eventIter.next();
+		if(nodeIndex == null) {
+			createIndex();
+		}
+		EventIndexList list = nodeIndex.remove(n.ID);
+		for(int i = 0; list != null && i < list.size; i++){
+			if(!list.isValid(i)) {
+				continue; // the event has left the queue 
+			}
+			Event e = list.events[i];
 			if(e.isNodeEvent() && n.equals(e.getEventNode())) {
 				// an event that would execute on this node
-				eventIter.remove();
+				remove(e);
 				e.free(); // free the event (and also the packet, if it's a packet event)
 				changed = true;
 			} else {
@@ -129,7 +299,7 @@ public class EventQueue extends TreeSet<Event> {
 		}
 		
 		if(changed){
-			notifyListeners();
+			changed();
 		}
 	}
 	
@@ -144,9 +314,15 @@ public class EventQueue extends TreeSet<Event> {
 	public void invalidatePacketEventsForThisEdge(Edge toDelFor){
 		boolean changed = false;
 		
-		Iterator<Event> eventIter = iterator();
-		while(eventIter.hasNext()){
-			Event eventInQueue = eventIter.next();
+		if(edgeIndex == null) {
+			createIndex();
+		}
+		EventIndexList list = edgeIndex.remove(toDelFor.getID());
+		for(int i = 0; list != null && i < list.size; i++){
+			if(!list.isValid(i)) {
+				continue; // the event has left the queue 
+			}
+			Event eventInQueue = list.events[i];
 			if(eventInQueue instanceof PacketEvent){
 				PacketEvent pe = (PacketEvent) eventInQueue;
 				if(pe.packet.edge != null && toDelFor.getID() == pe.packet.edge.getID()) {
@@ -158,7 +334,7 @@ public class EventQueue extends TreeSet<Event> {
 		}
 		
 		if(changed){
-			notifyListeners();
+			changed();
 		}
 	}
 	
@@ -178,7 +354,7 @@ public class EventQueue extends TreeSet<Event> {
 				eq.add(e);
 			}
 		}
-		super.clear(); // kill this set
+		clear(); // kill this set
 		sinalgo.runtime.Runtime.eventQueue = eq; // replace the event queue
 		notifyListeners(); 
 	}
@@ -193,7 +369,7 @@ public class EventQueue extends TreeSet<Event> {
 			e.drop();
 			e.free(); // free the event resources
 		}
-		super.clear(); // remove all events
+		clear(); // remove all events
 		notifyListeners(); 
 	}
 	
@@ -206,7 +382,33 @@ public class EventQueue extends TreeSet<Event> {
 			e.drop();
 			e.free();	
 		}
-		notifyListeners(); 
+		changed(); 
+	}
+	
+	/**
+	 * Called upon each change of the queue. Notifies the listeners, or only records 
+	 * the change if the notifications are coalesced while the simulation is running
+	 * (see <code>Configuration.eventQueueNotificationInterval</code>).  
+	 */
+	private void changed() {
+		if(listeners.isEmpty()) {
+			return; // nobody to notify
+		}
+		if(Global.isRunning && ++numPendingChanges < Configuration.eventQueueNotificationInterval) {
+			return;
+		}
+		notifyListeners();
+	}
+	
+	/**
+	 * Notifies the listeners if there are changes they have not been notified about yet. 
+	 * The framework calls this method whenever the GUI is redrawn during the simulation, 
+	 * and when the simulation stops. 
+	 */
+	public void flushNotifications() {
+		if(numPendingChanges > 0) {
+			notifyListeners();
+		}
 	}
 	
 	/**
@@ -214,6 +416,7 @@ public class EventQueue extends TreeSet<Event> {
 	 * there are some special cases, where the eventQueue and the queue does not notify it (interference)
 	 */
 	public void notifyListeners(){
+		numPendingChanges = 0;
 		for(int i = 0; i < listeners.size(); i++){
 			listeners.elementAt(i).eventQueueChanged();
 		}
@@ -237,8 +440,14 @@ public class EventQueue extends TreeSet<Event> {
 		listeners.remove(eqList);
 	}
 	
+	/**
+	 * Returns an iterator over the events in the order of their execution. 
+	 * The remove() method of the iterator removes the event from the queue, 
+	 * but does not free it.
+	 * @see java.util.AbstractCollection#iterator()
+	 */
 	public Iterator<Event> iterator(){
-		return new EventIter(super.iterator());
+		return new EventIter(storage.iterator());
 	}
 	
 	/**
@@ -265,33 +474,63 @@ public class EventQueue extends TreeSet<Event> {
 
 		public void remove() {
 			iter.remove();
+			current.queued = false;
 		}
 	}
 	
-	private static class EventComparator implements Comparator<Event>{
-
-		public int compare(Event arg0, Event arg1) {
-			// the comparison is twofold: first, we sort based on the time when the event fires
-			// if the time is equal for two events, the event that was created earlier is defined
-			// to be smaller. (This approach guarantees a consistent ordering). 
-			if(arg0.time == arg1.time){
-				if(arg0.id > arg1.id){
-					return 1;
-				}
-				else if(arg0.id < arg1.id){
-					return -1;
-				}
-				else{
-					return 0;
-				}
-			}
-			else if(arg0.time - arg1.time < 0){
-				return -1;
+	/**
+	 * The events of a node or an edge, together with the IDs the events had when
+	 * they were added. An entry is outdated if the event has left the queue, or has 
+	 * been recycled and thus got a new ID.
+	 */
+	private static class EventIndexList {
+		private Event[] events = new Event[4];
+		private long[] ids = new long[4];
+		private int size = 0;
+		private int compactAt = 8; // the size at which the outdated entries are removed
+		
+		private void add(Event e) {
+			if(size == compactAt) {
+				compact();
+				compactAt = Math.max(8, 2 * size);
 			}
-			else{
-				return 1;
+			if(size == events.length) {
+				Event[] ev = new Event[2 * size];
+				long[] id = new long[2 * size];
+				System.arraycopy(events, 0, ev, 0, size);
+				System.arraycopy(ids, 0, id, 0, size);
+				events = ev;
+				ids = id;
 			}
+			events[size] = e;
+			ids[size] = e.id;
+			size++;
 		}
 		
+		/**
+		 * @param i The position of an entry.
+		 * @return True if the event of the entry is still in the queue.
+		 */
+		private boolean isValid(int i) {
+			return events[i].queued && events[i].id == ids[i];
+		}
+		
+		/**
+		 * Removes the outdated entries.
+		 */
+		private void compact() {
+			int num = 0;
+			for(int i = 0; i < size; i++) {
+				if(isValid(i)) {
+					events[num] = events[i];
+					ids[num] = ids[i];
+					num++;
+				}
+			}
+			for(int i = num; i < size; i++) {
+				events[i] = null;
+			}
+			size = num;
+		}
 	}
 }
@@ -0,0 +1,177 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.events;
+
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The data structure that holds the events of the event queue. 
+ * <p>
+ * The events are ordered by their execution time. Events with the same execution time
+ * are ordered by their ID, such that the event created first is executed first. All 
+ * implementations must respect this ordering, such that a simulation executes the 
+ * events in the same order regardless of the chosen implementation.  
+ * <p>
+ * The implementation is selected with the <code>eventStorage</code> field of the
+ * configuration file, and must provide a constructor taking no arguments. 
+ */
+public abstract class EventStorageInterface implements Iterable<Event> {
+	
+	/**
+	 * The comparator that defines the order of the events.
+	 */
+	public static final Comparator<Event> comparator = new EventComparator();
+	
+	/**
+	 * Adds an event to this storage. 
+	 * @param e The event to add, which is not yet contained in this storage.
+	 */
+	public abstract void add(Event e);
+	
+	/**
+	 * Removes the event that executes first.
+	 * @return The event that executes first, null if this storage is empty.
+	 */
+	public abstract Event poll();
+	
+	/**
+	 * Removes an event from this storage.
+	 * @param e The event to remove.
+	 * @return True if the event was contained in this storage, otherwise false.
+	 */
+	public abstract boolean remove(Event e);
+	
+	/**
+	 * @return The number of events in this storage.
+	 */
+	public abstract int size();
+	
+	/**
+	 * Removes all events from this storage without freeing them.
+	 */
+	public abstract void clear();
+	
+	/**
+	 * Returns an iterator over the events in the order of their execution. The 
+	 * iterator supports the remove() method. 
+	 * @return An iterator over the events in the order of their execution.
+	 */
+	public abstract Iterator<Event> iterator();
+	
+	/**
+	 * Tests whether an event executes before another event. 
+	 * @param a The first event.
+	 * @param b The second event.
+	 * @return True if a executes before b, otherwise false.
+	 */
+	protected static boolean before(Event a, Event b) {
+		return a.time < b.time || (a.time == b.time && a.id < b.id);
+	}
+	
+	/**
+	 * Returns an iterator over a sorted copy of the given events. The remove() 
+	 * method of the iterator removes the current event from this storage.  
+	 * @param events The events to iterate over, the array is sorted in place.
+	 * @return An iterator over the given events in the order of their execution.
+	 */
+	protected Iterator<Event> sortedIterator(Event[] events) {
+		Arrays.sort(events, comparator);
+		return new SnapshotIterator(events);
+	}
+	
+	/**
+	 * Iterates over a sorted copy of the events.
+	 */
+	private class SnapshotIterator implements Iterator<Event> {
+		private Event[] events;
+		private int next = 0;
+		
+		private SnapshotIterator(Event[] events) {
+			this.events = events;
+		}
+		
+		public boolean hasNext() {
+			return next < events.length;
+		}
+
+		public Event next() {
+			if(next >= events.length) {
+				throw new NoSuchElementException();
+			}
+			return events[next++];
+		}
+
+		public void remove() {
+			if(next == 0 || events[next - 1] == null) {
+				throw new IllegalStateException();
+			}
+			EventStorageInterface.this.remove(events[next - 1]);
+			events[next - 1] = null;
+		}
+	}
+	
+	private static class EventComparator implements Comparator<Event>{
+
+		public int compare(Event arg0, Event arg1) {
+			// the comparison is twofold: first, we sort based on the time when the event fires
+			// if the time is equal for two events, the event that was created earlier is defined
+			// to be smaller. (This approach guarantees a consistent ordering). 
+			if(arg0.time == arg1.time){
+				if(arg0.id > arg1.id){
+					return 1;
+				}
+				else if(arg0.id < arg1.id){
+					return -1;
+				}
+				else{
+					return 0;
+				}
+			}
+			else if(arg0.time - arg1.time < 0){
+				return -1;
+			}
+			else{
+				return 1;
+			}
+		}
+		
+	}
+}
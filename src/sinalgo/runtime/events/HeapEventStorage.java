@@ -0,0 +1,196 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.events;
+
+
+import java.util.Iterator;
+
+import sinalgo.configuration.Configuration;
+
+/**
+ * Stores the events in an array-backed d-ary heap, where d is given by 
+ * <code>Configuration.eventHeapArity</code>. Adding and removing an event 
+ * takes O(log n) time, but the heap allocates no objects per event and 
+ * accesses the memory more locally than a tree.  
+ * <p>
+ * Each event stores its index in the heap, such that any event can be 
+ * removed in O(log n) time. The iterator sorts a copy of the heap and
+ * thus takes O(n log n) time. 
+ */
+public class HeapEventStorage extends EventStorageInterface {
+
+	private Event[] heap = new Event[64];
+	private int size = 0;
+	private int arity; 
+	
+	/**
+	 * Creates a new, empty heap with the arity given in the configuration.
+	 */
+	public HeapEventStorage() {
+		arity = Math.max(2, Configuration.eventHeapArity);
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#add(sinalgo.runtime.events.Event)
+	 */
+	public void add(Event e) {
+		if(size == heap.length) {
+			Event[] h = new Event[2 * heap.length];
+			System.arraycopy(heap, 0, h, 0, size);
+			heap = h;
+		}
+		siftUp(size++, e);
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#poll()
+	 */
+	public Event poll() {
+		if(size == 0) {
+			return null;
+		}
+		Event first = heap[0];
+		removeAt(0);
+		return first;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#remove(sinalgo.runtime.events.Event)
+	 */
+	public boolean remove(Event e) {
+		int i = e.queueIndex;
+		if(i < 0 || i >= size || heap[i] != e) {
+			return false;
+		}
+		removeAt(i);
+		return true;
+	}
+	
+	/**
+	 * Removes the event at the given index of the heap.
+	 * @param i The index of the event to remove.
+	 */
+	private void removeAt(int i) {
+		heap[i].queueIndex = -1;
+		Event last = heap[--size];
+		heap[size] = null;
+		if(i < size) {
+			siftDown(i, last);
+			if(heap[i] == last) { // the last event did not move down, it may need to move up
+				siftUp(i, last);
+			}
+		}
+	}
+	
+	/**
+	 * Places an event at the given position, or above if it executes before its parent.
+	 * @param i The free position to start from.
+	 * @param e The event to place.
+	 */
+	private void siftUp(int i, Event e) {
+		while(i > 0) {
+			int parent = (i - 1) / arity;
+			Event p = heap[parent];
+			if(!before(e, p)) {
+				break;
+			}
+			heap[i] = p;
+			p.queueIndex = i;
+			i = parent;
+		}
+		heap[i] = e;
+		e.queueIndex = i;
+	}
+	
+	/**
+	 * Places an event at the given position, or below if one of its children 
+	 * executes before it.
+	 * @param i The free position to start from.
+	 * @param e The event to place.
+	 */
+	private void siftDown(int i, Event e) {
+		while(true) {
+			int child = i * arity + 1;
+			if(child >= size) {
+				break;
+			}
+			// find the child that executes first
+			int end = Math.min(child + arity, size);
+			int min = child;
+			for(int c = child + 1; c < end; c++) {
+				if(before(heap[c], heap[min])) {
+					min = c;
+				}
+			}
+			if(!before(heap[min], e)) {
+				break;
+			}
+			heap[i] = heap[min];
+			heap[i].queueIndex = i;
+			i = min;
+		}
+		heap[i] = e;
+		e.queueIndex = i;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#size()
+	 */
+	public int size() {
+		return size;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#clear()
+	 */
+	public void clear() {
+		for(int i = 0; i < size; i++) {
+			heap[i].queueIndex = -1;
+			heap[i] = null;
+		}
+		size = 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#iterator()
+	 */
+	public Iterator<Event> iterator() {
+		Event[] copy = new Event[size];
+		System.arraycopy(heap, 0, copy, 0, size);
+		return sortedIterator(copy);
+	}
+}
@@ -46,6 +46,7 @@ import sinalgo.nodes.messages.NackBox;
 import sinalgo.nodes.messages.Packet;
 import sinalgo.nodes.messages.Packet.PacketType;
 import sinalgo.runtime.Global;
+import sinalgo.runtime.HandlerProfiler;
 import sinalgo.runtime.Main;
 import sinalgo.runtime.Runtime;
 import sinalgo.tools.logging.Logging;
@@ -135,11 +136,23 @@ public class PacketEvent extends Event {
 		if(packet.edge != null){
 			packet.edge.removeMessageForThisEdge(packet.message);
 		}
+		HandlerProfiler profiler = HandlerProfiler.getProfiler(); // null if not enabled
+		long start = profiler != null ? System.nanoTime() : 0;
 		if(packet.positiveDelivery){
+			if(profiler != null) {
+				profiler.prepareInbox(inbox.resetForPacket(packet));
+				start = System.nanoTime();
+			}
 			packet.destination.handleMessages(inbox.resetForPacket(packet));
+			if(profiler != null) {
+				profiler.addMessages(packet.destination, start);
+			}
 		} else {
 			if(Configuration.generateNAckMessages && packet.type == PacketType.UNICAST) {
 				packet.origin.handleNAckMessages(nAckBox.resetForPacket(packet));
+				if(profiler != null) {
+					profiler.add(HandlerProfiler.Handler.HANDLE_NACK_MESSAGES, packet.origin, start);
+				}
 			}
 		}
 	}
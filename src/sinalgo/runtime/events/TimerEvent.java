@@ -42,6 +42,7 @@ import java.util.Stack;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.timers.Timer;
 import sinalgo.runtime.Global;
+import sinalgo.runtime.HandlerProfiler;
 import sinalgo.runtime.Main;
 import sinalgo.tools.logging.Logging;
 
@@ -116,7 +117,14 @@ public class TimerEvent extends Event {
 	@Override
 	public void handle() {
 		// a timer fires in the asynchronous case
-		timer.fire();
+		HandlerProfiler profiler = HandlerProfiler.getProfiler(); // null if not enabled
+		if(profiler != null) {
+			long start = System.nanoTime();
+			timer.fire();
+			profiler.addTimer(timer, start);
+		} else {
+			timer.fire();
+		}
 	}
 	
 	/* (non-Javadoc)
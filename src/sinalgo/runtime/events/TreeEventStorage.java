@@ -0,0 +1,94 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.events;
+
+
+import java.util.Iterator;
+import java.util.TreeSet;
+
+/**
+ * Stores the events in a red-black tree. Adding and removing an event takes
+ * O(log n) time. 
+ * <p>
+ * This is the default event storage.
+ */
+public class TreeEventStorage extends EventStorageInterface {
+
+	private TreeSet<Event> events = new TreeSet<Event>(comparator);
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#add(sinalgo.runtime.events.Event)
+	 */
+	public void add(Event e) {
+		events.add(e);
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#poll()
+	 */
+	public Event poll() {
+		return events.pollFirst();
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#remove(sinalgo.runtime.events.Event)
+	 */
+	public boolean remove(Event e) {
+		return events.remove(e);
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#size()
+	 */
+	public int size() {
+		return events.size();
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#clear()
+	 */
+	public void clear() {
+		events.clear();
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.events.EventStorageInterface#iterator()
+	 */
+	public Iterator<Event> iterator() {
+		return events.iterator();
+	}
+}
@@ -0,0 +1,406 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.configuration.CorruptConfigurationEntryException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+import sinalgo.runtime.Main;
+
+
+/**
+ * A node collection for mobile scenarios in 2D and 3D. Like the geometric node collections, 
+ * it tesselates the deployment area into cells of side length rMax, such that the potential
+ * neighbors of a node are located in the (at most 3x3 or 3x3x3) cells around its cell. 
+ * <p>
+ * Instead of a linked list per cell, each node is assigned a slot, and the slots are 
+ * kept in a single int array, sorted by cell. The array is rebuilt with one counting-sort 
+ * pass over all nodes, and the potential neighbors of a node are obtained by scanning the
+ * ranges of the neighboring cells sequentially.
+ * <p>
+ * Moving a node only records its new cell. Nodes that changed their cell (or were added) 
+ * since the last rebuild are additionally kept in a small list per cell. The array is rebuilt 
+ * when neighbors are requested and more than a 16th of the nodes have changed. It is not 
+ * rebuilt while the nodes are being moved, but at the first query after the mobility models
+ * moved the nodes.  
+ * <p>
+ * To use this collection, set the <code>nodeCollection2D</code> or <code>nodeCollection3D</code> 
+ * entry of the config file to <code>sinalgo.runtime.nodeCollection.CellListNodeCollection</code>. 
+ * The nodes are iterated in the order of their ID.
+ */
+public class CellListNodeCollection extends IndexedNodeCollection {
+
+	private double rMax; // the maximal distance between any two connected nodes
+	private boolean is3D = Configuration.dimensions == 3;
+	private int numX, numY, numZ; // number of cells in each dimension
+	private int numCells;
+	
+	// per slot: the node, its current cell and its cell upon the last rebuild (-1 if not sorted) 
+	private Node[] slotNode = new Node[16];
+	private int[] slotCell = new int[16];
+	private int[] sortedCell = new int[16];
+	private int numSlots = 0; // slots in use or free
+	private int[] freeSlots = new int[16]; // stack of free slots 
+	private int numFreeSlots = 0;
+	
+	// the slots sorted by cell upon the last rebuild: the slots of cell c are stored 
+	// in sortedSlots[cellStart[c] .. cellStart[c+1]-1]
+	private int[] sortedSlots = new int[0];
+	private int[] cellStart;
+	
+	// the slots whose current cell differs from their sorted cell, as a doubly linked list per cell
+	private int[] pendingHead; // first slot of the list of each cell, -1 if empty 
+	private int[] pendingNext = new int[16];
+	private int[] pendingPrev = new int[16];
+	private boolean[] isPending = new boolean[16];
+	
+	private int numChanges = 0; // # of nodes added, removed or moved to another cell since the last rebuild
+	
+	// The enumeration object used repeatedly to access the potential neighbors of a node
+	private CellNeighborEnumeration enumeration = new CellNeighborEnumeration();
+	
+	/**
+	 * Default constructor. Creates and initializes the cell list node collection. 
+	 */
+	public CellListNodeCollection() {
+		// Immediately stop execution if rMax is not defined in the xml config file.  
+		try {
+			rMax = Configuration.getDoubleParameter("GeometricNodeCollection/rMax");
+		} catch(CorruptConfigurationEntryException e) {
+			Main.fatalError(e.getMessage());
+		}
+		if(rMax <= 0) {
+			Main.fatalError("CellListNodeCollection: The value of rMax from the config file entry " +
+			                "<GeometricNodeCollection rMax=\"" + rMax + "\"/>" +
+			                "is not valid. The value of rMax must be positive."
+			                );
+		}
+		numX = Math.max(1, (int) Math.ceil(Configuration.dimX / rMax));
+		numY = Math.max(1, (int) Math.ceil(Configuration.dimY / rMax));
+		numZ = is3D ? Math.max(1, (int) Math.ceil(Configuration.dimZ / rMax)) : 1;
+		numCells = numX * numY * numZ;
+		cellStart = new int[numCells + 1];
+		pendingHead = new int[numCells];
+		Arrays.fill(pendingHead, -1);
+	}
+	
+	/**
+	 * Maps a component of a position-coordinate to the corresponding offset
+	 * of the cell in one dimension.
+	 */
+	private int mapCoord(double c, int num) {
+		int i = (int) Math.floor(c / rMax);
+		return i < 0 ? 0 : (i >= num ? num - 1 : i);
+	}
+	
+	/**
+	 * @param n A node 
+	 * @return The index of the cell containing the given node.
+	 */
+	private int getCell(Node n) {
+		Position p = n.getPosition();
+		int x = mapCoord(p.xCoord, numX);
+		int y = mapCoord(p.yCoord, numY);
+		int z = is3D ? mapCoord(p.zCoord, numZ) : 0;
+		return (x * numY + y) * numZ + z;
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#_addNode(sinalgo.nodes.Node)
+	 */
+	protected void _addNode(Node n) {
+		n.holdInNodeCollection = true;
+		int s;
+		if(numFreeSlots > 0) {
+			s = freeSlots[--numFreeSlots];
+		} else {
+			if(numSlots == slotNode.length) {
+				growSlots(2 * numSlots);
+			}
+			s = numSlots++;
+		}
+		n.nodeCollectionInfo = new CellSlot(s);
+		slotNode[s] = n;
+		slotCell[s] = getCell(n);
+		sortedCell[s] = -1; // not contained in the sorted array
+		linkPending(s);
+		allNodes.add(n);
+		numChanges++;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#_removeNode(sinalgo.nodes.Node)
+	 */
+	protected void _removeNode(Node n) {
+		n.holdInNodeCollection = false;
+		int s = ((CellSlot) n.nodeCollectionInfo).slot;
+		if(slotNode[s] != n) {
+			Main.fatalError("CellListNodeCollection.removeNode(Node):\n" +
+			                "A node is being removed, but it is not " +
+			                "stored in the slot in which it claims to be.");
+		}
+		unlinkPending(s);
+		slotNode[s] = null;
+		slotCell[s] = -1; // differs from sortedCell, such that the entry in the sorted array is skipped until the next rebuild 
+		if(numFreeSlots == freeSlots.length) {
+			int[] tmp = new int[2 * numFreeSlots];
+			System.arraycopy(freeSlots, 0, tmp, 0, numFreeSlots);
+			freeSlots = tmp;
+		}
+		freeSlots[numFreeSlots++] = s;
+		allNodes.remove(n);
+		n.nodeCollectionInfo = null;
+		numChanges++;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#_updateNodeCollection(sinalgo.nodes.Node)
+	 */
+	protected void _updateNodeCollection(Node n) {
+		if(!n.holdInNodeCollection) {
+			return; // the node is not yet hold by this node collection 
+		}
+		int s = ((CellSlot) n.nodeCollectionInfo).slot;
+		int cell = getCell(n);
+		if(cell != slotCell[s]) {
+			unlinkPending(s);
+			slotCell[s] = cell;
+			if(cell != sortedCell[s]) {
+				linkPending(s);
+			} // else: the node moved back to the cell in which it is sorted
+			numChanges++;
+		}
+	}
+	
+	/**
+	 * Adds a slot to the list of pending slots of its current cell.
+	 * @param s The slot
+	 */
+	private void linkPending(int s) {
+		int c = slotCell[s];
+		int head = pendingHead[c];
+		pendingNext[s] = head;
+		pendingPrev[s] = -1;
+		if(head != -1) {
+			pendingPrev[head] = s;
+		}
+		pendingHead[c] = s;
+		isPending[s] = true;
+	}
+	
+	/**
+	 * Removes a slot from the list of pending slots of its current cell, if it is contained.
+	 * @param s The slot
+	 */
+	private void unlinkPending(int s) {
+		if(!isPending[s]) {
+			return;
+		}
+		int next = pendingNext[s], prev = pendingPrev[s];
+		if(prev != -1) {
+			pendingNext[prev] = next;
+		} else {
+			pendingHead[slotCell[s]] = next;
+		}
+		if(next != -1) {
+			pendingPrev[next] = prev;
+		}
+		isPending[s] = false;
+	}
+	
+	/**
+	 * Enlarges the per-slot arrays.
+	 * @param capacity The new number of slots.
+	 */
+	private void growSlots(int capacity) {
+		Node[] tmpNode = new Node[capacity];
+		System.arraycopy(slotNode, 0, tmpNode, 0, numSlots);
+		slotNode = tmpNode;
+		slotCell = growArray(slotCell, capacity);
+		sortedCell = growArray(sortedCell, capacity);
+		pendingNext = growArray(pendingNext, capacity);
+		pendingPrev = growArray(pendingPrev, capacity);
+		boolean[] tmpPending = new boolean[capacity];
+		System.arraycopy(isPending, 0, tmpPending, 0, numSlots);
+		isPending = tmpPending;
+	}
+	
+	/**
+	 * @param a An array holding the values of the slots in use 
+	 * @param capacity The new number of slots
+	 * @return A copy of the array with the given length
+	 */
+	private int[] growArray(int[] a, int capacity) {
+		int[] tmp = new int[capacity];
+		System.arraycopy(a, 0, tmp, 0, numSlots);
+		return tmp;
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.IndexedNodeCollection#needsRebuild()
+	 */
+	protected boolean needsRebuild() {
+		return numChanges > 0 && numChanges >= (allNodes.size() >> 4);
+	}
+	
+	/**
+	 * Sorts all slots by their current cell with a counting sort and clears the 
+	 * lists of pending slots. 
+	 */
+	protected void rebuild() {
+		Arrays.fill(cellStart, 0);
+		int numNodes = 0;
+		for(int s = 0; s < numSlots; s++) {
+			if(slotNode[s] != null) {
+				cellStart[slotCell[s] + 1]++;
+				numNodes++;
+			}
+		}
+		for(int c = 0; c < numCells; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		if(sortedSlots.length < numNodes) {
+			sortedSlots = new int[Math.max(numNodes, 2 * sortedSlots.length)];
+		}
+		// use pendingHead as the insert position of each cell
+		System.arraycopy(cellStart, 0, pendingHead, 0, numCells);
+		for(int s = 0; s < numSlots; s++) {
+			if(slotNode[s] != null) {
+				int c = slotCell[s];
+				sortedSlots[pendingHead[c]++] = s;
+				sortedCell[s] = c;
+			}
+			isPending[s] = false;
+		}
+		Arrays.fill(pendingHead, -1);
+		numChanges = 0;
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.IndexedNodeCollection#enumeratePossibleNeighbors(sinalgo.nodes.Node)
+	 */
+	protected Enumeration<Node> enumeratePossibleNeighbors(Node n) {
+		enumeration.resetForNode(n);
+		return enumeration;
+	}
+	
+	/**
+	 * An enumeration over the nodes in the cells around a given node. 
+	 * For each cell, it first scans the range of the cell in the sorted array, 
+	 * skipping the nodes that left the cell, and then the pending nodes of the cell.
+	 */
+	private class CellNeighborEnumeration implements Enumeration<Node> {
+		private int[] cells = new int[27]; // the cells to visit
+		private int numCellsToVisit = 0;
+		private int cellIndex = 0; // offset into cells of the current cell
+		private int pos = 0, end = 0; // the current range in the sorted array
+		private int pending = -1; // the current pending slot, -1 if none
+		private Node next = null;
+		
+		/**
+		 * Prepares this enumeration for a given node n.
+		 * @param n The node for which the potential neighbors should be enumerated.
+		 */
+		public void resetForNode(Node n) {
+			Position p = n.getPosition();
+			int x = mapCoord(p.xCoord, numX);
+			int y = mapCoord(p.yCoord, numY);
+			int z = is3D ? mapCoord(p.zCoord, numZ) : 0;
+			numCellsToVisit = 0;
+			for(int i = Math.max(0, x - 1); i <= Math.min(numX - 1, x + 1); i++) {
+				for(int j = Math.max(0, y - 1); j <= Math.min(numY - 1, y + 1); j++) {
+					for(int k = Math.max(0, z - 1); k <= Math.min(numZ - 1, z + 1); k++) {
+						cells[numCellsToVisit++] = (i * numY + j) * numZ + k;
+					}
+				}
+			}
+			cellIndex = -1;
+			pos = end = 0;
+			pending = -1;
+			next = null;
+		}
+		
+		/**
+		 * Advances to the next node, if there is one.
+		 */
+		private void advance() {
+			while(true) {
+				while(pos < end) { // scan the sorted range of the current cell
+					int s = sortedSlots[pos++];
+					if(slotCell[s] == sortedCell[s]) { // the node is still in this cell
+						next = slotNode[s];
+						return;
+					}
+				}
+				if(pending != -1) { // then the pending nodes of the current cell
+					next = slotNode[pending];
+					pending = pendingNext[pending];
+					return;
+				}
+				if(++cellIndex >= numCellsToVisit) {
+					return;
+				}
+				int c = cells[cellIndex];
+				pos = cellStart[c];
+				end = cellStart[c + 1];
+				pending = pendingHead[c];
+			}
+		}
+		
+		public boolean hasMoreElements() {
+			if(next == null) {
+				advance();
+			}
+			return next != null;
+		}
+
+		public Node nextElement() {
+			if(!hasMoreElements()) {
+				throw new NoSuchElementException();
+			}
+			Node n = next;
+			next = null;
+			return n;
+		}
+	}
+}
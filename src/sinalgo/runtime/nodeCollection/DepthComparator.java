@@ -0,0 +1,75 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+
+import java.util.Comparator;
+
+import sinalgo.gui.transformation.PositionTransformation;
+import sinalgo.gui.transformation.Transformation3D;
+import sinalgo.nodes.Node;
+import sinalgo.runtime.Main;
+
+/**
+ * Sorts the elements such that nodes in the back are drawn first
+ */
+class DepthComparator implements Comparator<Node> {
+	PositionTransformation pt= null;
+	Transformation3D t3d = null; 
+	
+	/**
+	 * Creates a new DepthComparator instance. Note that the DepthComparator only does something
+	 * in 3 Dimensions.
+	 */
+	DepthComparator() {
+		pt = Main.getRuntime().getTransformator();
+		if(pt instanceof Transformation3D) {
+			t3d = (Transformation3D) pt;
+		}
+	}
+
+	public int compare(Node n1, Node n2)  {
+		if(t3d != null) {
+			double zN1 = t3d.translateToGUIPositionAndGetZOffset(n1.getPosition());
+			double zN2 = t3d.translateToGUIPositionAndGetZOffset(n2.getPosition());
+			return (int)(zN1 - zN2);
+		} else {
+			//The deptcompator is not used in 2 dimensions.
+			return 0;
+		}
+	}
+}
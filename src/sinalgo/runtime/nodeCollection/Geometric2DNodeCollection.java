@@ -39,7 +39,6 @@ package sinalgo.runtime.nodeCollection;
 
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.Vector;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.CorruptConfigurationEntryException;
@@ -68,19 +67,9 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
 	//
 	private double rMax;
 	
-	//the local nodes to be able to simply traverse the nodes. A Vector is ok... well...
-	private Vector<Node> localNodes = new Vector<Node>();
-	// TODO: removing nodes from this list is expensive and costs O(n). The main 
-	// difficulty to replace this datastructure with a better one is the 'getRandomNode' 
-	// method, which returns a random entry in this list. For a vector, this is easy 
-	// to achieve. 
-	// Proposed solution: Implement a modified TreeSet, which is a red-black tree, and add
-	// to each entry of the tree a field that indicates the number of entries stored in 
-	// its descendants. This would permit to access entries from the tree using an array-style
-	// method (return the i-th element) in O(log n) time. add, delete, contains also take O(log n)
-	// time. Furthermore, iteration is also very cheap with a stack of at most log(n) size.
-	// Use the same datastructure for the 3D implementation. 
-	
+	//the local nodes to be able to simply traverse the nodes. The set supports removing nodes and 
+	//accessing the i-th node (for getRandomNode) in O(log n) time.
+	private NodeTreeSet localNodes = new NodeTreeSet();
 	
 	//the core datastructure able to store the nodes depending on the position.
 	private NodeListInterface[][] lists = null;
@@ -38,15 +38,12 @@ package sinalgo.runtime.nodeCollection;
 
 
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.Vector;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.CorruptConfigurationEntryException;
 import sinalgo.gui.transformation.PositionTransformation;
-import sinalgo.gui.transformation.Transformation3D;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.Position;
 import sinalgo.runtime.Main;
@@ -73,8 +70,8 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
 	// a hierarchical matrix to access the nodes based on their position
 	private NodeListInterface[][][] list;
 
-	// a flat list for fast iteration over all nodes
-	private Vector<Node> flatList = new Vector<Node>();
+	// a flat set for fast iteration over all nodes
+	private NodeTreeSet flatList = new NodeTreeSet();
 	private boolean flatListChanged = false;
 	
 	private Node[] sortedNodeArray = new Node[1];
@@ -402,34 +399,4 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
 			}
 		}		
 	}
-	
-	/**
-	 * Sorts the elements such that nodes in the back are drawn first
-	 */
-	private class DepthComparator implements Comparator<Node> {
-		PositionTransformation pt= null;
-		Transformation3D t3d = null; 
-		
-		/**
-		 * Creates a new DepthComparator instance. Note that the DepthComparator only does something
-		 * in 3 Dimensions.
-		 */
-		private DepthComparator() {
-			pt = Main.getRuntime().getTransformator();
-			if(pt instanceof Transformation3D) {
-				t3d = (Transformation3D) pt;
-			}
-		}
-
-		public int compare(Node n1, Node n2)  {
-			if(t3d != null) {
-				double zN1 = t3d.translateToGUIPositionAndGetZOffset(n1.getPosition());
-				double zN2 = t3d.translateToGUIPositionAndGetZOffset(n2.getPosition());
-				return (int)(zN1 - zN2);
-			} else {
-				//The deptcompator is not used in 2 dimensions.
-				return 0;
-			}
-		}
-	}
 }
@@ -0,0 +1,162 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Vector;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.Node;
+import sinalgo.tools.statistics.Distribution;
+
+
+/**
+ * The base class of the node collections that keep the nodes in a spatial index, 
+ * which is rebuilt from time to time after the nodes have moved. 
+ * <p>
+ * The index is never rebuilt while a node is being moved. Instead, the subclass is 
+ * asked whether the index needs to be rebuilt at the next call to 
+ * {@link #getPossibleNeighborsEnumeration(Node)}, i.e. at the first query after
+ * the nodes have moved. E.g. in synchronous mode, the index is rebuilt at most 
+ * once between the mobility of two rounds.
+ * <p>
+ * In addition to the index, this class keeps all nodes ordered by their ID, 
+ * such that the nodes are iterated in the order of their ID.   
+ */
+public abstract class IndexedNodeCollection extends NodeCollectionInterface {
+
+	/**
+	 * All nodes of this collection, for iteration and to pick random nodes. 
+	 * The subclass adds and removes the nodes.
+	 */
+	protected NodeTreeSet allNodes = new NodeTreeSet();
+	
+	/**
+	 * @return True if the index should be rebuilt before the next query. 
+	 */
+	protected abstract boolean needsRebuild();
+	
+	/**
+	 * Rebuilds the index from all nodes of this collection. 
+	 */
+	protected abstract void rebuild();
+	
+	/**
+	 * Retrieves the possible neighbor candidates of a node from the index as it is, 
+	 * without rebuilding it. 
+	 * @param n The node to get the neighbor candidates for.
+	 * @return The Enumeration over the possible neighbors of node n.
+	 * @see NodeCollectionInterface#getPossibleNeighborsEnumeration(Node)
+	 */
+	protected abstract Enumeration<Node> enumeratePossibleNeighbors(Node n);
+	
+	/**
+	 * Rebuilds the index if the subclass requests so.
+	 */
+	protected void rebuildIfNecessary() {
+		if(needsRebuild()) {
+			rebuild();
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#getPossibleNeighborsEnumeration(sinalgo.nodes.Node)
+	 */
+	public Enumeration<Node> getPossibleNeighborsEnumeration(Node n) {
+		rebuildIfNecessary();
+		return enumeratePossibleNeighbors(n);
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#getPossibleNeighborsEnumerationWhileMoving(sinalgo.nodes.Node)
+	 */
+	public Enumeration<Node> getPossibleNeighborsEnumerationWhileMoving(Node n) {
+		return enumeratePossibleNeighbors(n);
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#getSortedNodeEnumeration(boolean)
+	 */
+	public Enumeration<Node> getSortedNodeEnumeration(boolean backToFront) {
+		if(Configuration.dimensions != 3 || !Configuration.draw3DGraphNodesInProperOrder) {
+			return allNodes.elements();
+		}
+		Node[] sorted = allNodes.toArray(new Node[allNodes.size()]);
+		Arrays.sort(sorted, new DepthComparator());
+		Vector<Node> result = new Vector<Node>(sorted.length);
+		for(int i = 0; i < sorted.length; i++) {
+			result.add(sorted[backToFront ? i : sorted.length - 1 - i]);
+		}
+		return result.elements();
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#getNodeEnumeration()
+	 */
+	public Enumeration<Node> getNodeEnumeration() {
+		return allNodes.elements();
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#iterator()
+	 */
+	public Iterator<Node> iterator() {
+		return allNodes.iterator();
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#getRandomNode()
+	 */
+	public Node getRandomNode() {
+		if(allNodes.size() > 0) {
+			java.util.Random rand = Distribution.getRandom();
+			return allNodes.elementAt(rand.nextInt(allNodes.size()));
+		} else {
+			return null;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#size()
+	 */
+	public int size() {
+		return allNodes.size();
+	}
+}
@@ -0,0 +1,640 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.configuration.CorruptConfigurationEntryException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+import sinalgo.runtime.Main;
+
+
+/**
+ * A node collection backed by a k-d tree, for deployments where a uniform grid 
+ * does not fit: clustered nodes, or a huge deployment area with a small radio range. 
+ * The memory used by this collection only depends on the number of nodes, not on 
+ * the size of the deployment area, and the tree adapts to the density of the nodes.
+ * <p>
+ * The tree is bulk loaded from all nodes and stored in flat arrays, each subtree 
+ * being split at the median of the coordinate with the largest spread. It stores 
+ * the positions of the nodes at the time it was built. A node that has been added 
+ * since, or that has moved further than <code>rMax/4</code> from its stored position,
+ * is kept in a list of pending nodes. The pending nodes are additionally kept in a hashed 
+ * grid of cells with side length rMax, such that a query only scans the pending nodes
+ * around the queried position. The tree is rebuilt when neighbors are requested and
+ * there are at least as many pending nodes as nodes in the tree, or scanning the pending
+ * nodes has cost about as much as a rebuild. It is not rebuilt while the nodes are 
+ * being moved, but at the first query after the mobility models moved the nodes.  
+ * <p>
+ * The potential neighbors of a node are exactly the nodes within distance rMax, 
+ * as given by the <code>GeometricNodeCollection/rMax</code> entry of the config file.
+ * Other radii may be queried with {@link #getNodesInRadius(Position, double)}.
+ * <p>
+ * To use this collection, set the <code>nodeCollection2D</code> or <code>nodeCollection3D</code> 
+ * entry of the config file to <code>sinalgo.runtime.nodeCollection.KdTreeNodeCollection</code>. 
+ * The nodes are iterated in the order of their ID.
+ */
+public class KdTreeNodeCollection extends IndexedNodeCollection {
+
+	private double rMax; // the maximal distance between any two connected nodes
+	private double slack; // how far a node may move before it is taken out of the tree
+	private int numAxes = Configuration.dimensions == 3 ? 3 : 2; // the axes along which the tree is split
+	
+	// the tree: the root of the subtree stored in [lo, hi) is at (lo+hi)/2, its left 
+	// subtree in [lo, (lo+hi)/2) and its right subtree in [(lo+hi)/2+1, hi)
+	private Node[] treeNode = new Node[0]; // null for removed nodes
+	private double[] treeCoord = new double[0]; // 3 coordinates per node, at the time the tree was built 
+	private byte[] treeAxis = new byte[0]; // the axis along which each subtree is split 
+	private int treeSize = 0;
+	private int numRemoved = 0; // # of removed nodes in the tree
+	
+	// the nodes added or moved since the tree was built, with the key of their cell in the 
+	// grid of pending nodes, and the previous and next pending node in the same cell (-1 if none) 
+	private Node[] pending = new Node[16];
+	private long[] pendingCell = new long[16];
+	private int[] pendingPrev = new int[16];
+	private int[] pendingNext = new int[16];
+	private int numPending = 0;
+	
+	// the grid of pending nodes, as a hash table with open addressing from the key of 
+	// a cell to the first pending node of the cell (-1 if none, UNUSED for free entries).
+	// The entries are only freed when the tree is rebuilt.
+	private static final int UNUSED = -2;
+	private long[] gridKey = new long[32];
+	private int[] gridHead = new int[32];
+	private int gridSize = 0; // # of entries in use
+	
+	private long scanCost = 0; // # of pending nodes scanned since the tree was built
+	private long rebuildCost = 0; // approximate cost of rebuilding the tree
+	
+	private int[] stack = new int[128]; // the subtrees to visit during a query
+	
+	// The enumeration object used repeatedly to access the potential neighbors of a node
+	private RadiusEnumeration enumeration = new RadiusEnumeration();
+	
+	/**
+	 * Default constructor. Creates and initializes the k-d tree node collection. 
+	 */
+	public KdTreeNodeCollection() {
+		// Immediately stop execution if rMax is not defined in the xml config file.  
+		try {
+			rMax = Configuration.getDoubleParameter("GeometricNodeCollection/rMax");
+		} catch(CorruptConfigurationEntryException e) {
+			Main.fatalError(e.getMessage());
+		}
+		if(rMax <= 0) {
+			Main.fatalError("KdTreeNodeCollection: The value of rMax from the config file entry " +
+			                "<GeometricNodeCollection rMax=\"" + rMax + "\"/>" +
+			                "is not valid. The value of rMax must be positive."
+			                );
+		}
+		slack = rMax / 4;
+		Arrays.fill(gridHead, UNUSED);
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#_addNode(sinalgo.nodes.Node)
+	 */
+	protected void _addNode(Node n) {
+		n.holdInNodeCollection = true;
+		n.nodeCollectionInfo = new KdTreeEntry();
+		addPending(n);
+		allNodes.add(n);
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#_removeNode(sinalgo.nodes.Node)
+	 */
+	protected void _removeNode(Node n) {
+		n.holdInNodeCollection = false;
+		KdTreeEntry entry = (KdTreeEntry) n.nodeCollectionInfo;
+		if(entry.treeIndex != -1) {
+			if(treeNode[entry.treeIndex] != n) {
+				Main.fatalError("KdTreeNodeCollection.removeNode(Node):\n" +
+				                "A node is being removed, but it is not " +
+				                "stored in the tree where it claims to be.");
+			}
+			treeNode[entry.treeIndex] = null; // the stored position still guides the queries until the next rebuild
+			numRemoved++;
+		}
+		if(entry.pendingIndex != -1) {
+			removePending(entry);
+		}
+		allNodes.remove(n);
+		n.nodeCollectionInfo = null;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#_updateNodeCollection(sinalgo.nodes.Node)
+	 */
+	protected void _updateNodeCollection(Node n) {
+		if(!n.holdInNodeCollection) {
+			return; // the node is not yet hold by this node collection 
+		}
+		KdTreeEntry entry = (KdTreeEntry) n.nodeCollectionInfo;
+		Position p = n.getPosition();
+		if(entry.pendingIndex != -1) { // pending nodes are always tested at their current position
+			int i = entry.pendingIndex;
+			long cell = getCellKey(p.xCoord, p.yCoord, p.zCoord);
+			if(cell != pendingCell[i]) {
+				unlinkPending(i);
+				pendingCell[i] = cell;
+				linkPending(i);
+			}
+			return;
+		}
+		int i = 3 * entry.treeIndex;
+		double dx = p.xCoord - treeCoord[i], dy = p.yCoord - treeCoord[i + 1], dz = p.zCoord - treeCoord[i + 2];
+		if(dx * dx + dy * dy + dz * dz > slack * slack) {
+			addPending(n); // the stored position is too far off to find the node with the tree 
+		}
+	}
+	
+	/**
+	 * Appends a node to the list of pending nodes.
+	 * @param n The node
+	 */
+	private void addPending(Node n) {
+		if(numPending == pending.length) {
+			int capacity = 2 * numPending;
+			Node[] tmp = new Node[capacity];
+			System.arraycopy(pending, 0, tmp, 0, numPending);
+			pending = tmp;
+			long[] tmpCell = new long[capacity];
+			System.arraycopy(pendingCell, 0, tmpCell, 0, numPending);
+			pendingCell = tmpCell;
+			int[] tmpPrev = new int[capacity];
+			System.arraycopy(pendingPrev, 0, tmpPrev, 0, numPending);
+			pendingPrev = tmpPrev;
+			int[] tmpNext = new int[capacity];
+			System.arraycopy(pendingNext, 0, tmpNext, 0, numPending);
+			pendingNext = tmpNext;
+		}
+		int i = numPending++;
+		((KdTreeEntry) n.nodeCollectionInfo).pendingIndex = i;
+		pending[i] = n;
+		Position p = n.getPosition();
+		pendingCell[i] = getCellKey(p.xCoord, p.yCoord, p.zCoord);
+		linkPending(i);
+	}
+	
+	/**
+	 * Removes a node from the list of pending nodes by moving the last pending node to its place.
+	 * @param entry The entry of the node
+	 */
+	private void removePending(KdTreeEntry entry) {
+		int i = entry.pendingIndex;
+		unlinkPending(i);
+		int last = --numPending;
+		if(i != last) { // move the last pending node to offset i, keeping its place in the list of its cell 
+			pending[i] = pending[last];
+			pendingCell[i] = pendingCell[last];
+			pendingPrev[i] = pendingPrev[last];
+			pendingNext[i] = pendingNext[last];
+			if(pendingPrev[i] != -1) {
+				pendingNext[pendingPrev[i]] = i;
+			} else {
+				gridHead[findCell(pendingCell[i], false)] = i;
+			}
+			if(pendingNext[i] != -1) {
+				pendingPrev[pendingNext[i]] = i;
+			}
+			((KdTreeEntry) pending[i].nodeCollectionInfo).pendingIndex = i;
+		}
+		pending[last] = null;
+		entry.pendingIndex = -1;
+	}
+	
+	/**
+	 * Adds a pending node to the list of its cell in the grid of pending nodes.
+	 * @param i The offset of the node in the list of pending nodes
+	 */
+	private void linkPending(int i) {
+		int c = findCell(pendingCell[i], true);
+		int head = gridHead[c];
+		pendingPrev[i] = -1;
+		pendingNext[i] = head;
+		if(head != -1) {
+			pendingPrev[head] = i;
+		}
+		gridHead[c] = i;
+	}
+	
+	/**
+	 * Removes a pending node from the list of its cell in the grid of pending nodes.
+	 * @param i The offset of the node in the list of pending nodes
+	 */
+	private void unlinkPending(int i) {
+		int prev = pendingPrev[i], next = pendingNext[i];
+		if(prev != -1) {
+			pendingNext[prev] = next;
+		} else {
+			gridHead[findCell(pendingCell[i], false)] = next;
+		}
+		if(next != -1) {
+			pendingPrev[next] = prev;
+		}
+	}
+	
+	/**
+	 * Maps a coordinate to the offset of the cell containing it along one axis.
+	 */
+	private long mapCoord(double c) {
+		return (long) Math.floor(c / rMax);
+	}
+	
+	/**
+	 * Returns the key of a cell of the grid of pending nodes. The offsets of the cell 
+	 * are truncated to 21 bits each, such that cells far apart may share a key. This 
+	 * only adds nodes to the candidates that are tested for their distance.  
+	 * @param x The offset of the cell along the x axis 
+	 * @param y The offset of the cell along the y axis 
+	 * @param z The offset of the cell along the z axis 
+	 * @return The key of the cell
+	 */
+	private static long getCellKey(long x, long y, long z) {
+		return ((x & 0x1FFFFF) << 42) | ((y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+	}
+	
+	/**
+	 * @return The key of the cell of the grid of pending nodes containing the given position.
+	 */
+	private long getCellKey(double x, double y, double z) {
+		return getCellKey(mapCoord(x), mapCoord(y), numAxes == 3 ? mapCoord(z) : 0);
+	}
+	
+	/**
+	 * Looks up a cell in the hash table of the grid of pending nodes. 
+	 * @param key The key of the cell
+	 * @param create True if the cell should be added to the hash table if it is not contained
+	 * @return The offset of the cell in the hash table, -1 if the cell is not contained and create is false
+	 */
+	private int findCell(long key, boolean create) {
+		int mask = gridKey.length - 1;
+		int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+		while(gridHead[i] != UNUSED) {
+			if(gridKey[i] == key) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		if(!create) {
+			return -1;
+		}
+		if(2 * (gridSize + 1) > gridKey.length) {
+			growGrid();
+			return findCell(key, true);
+		}
+		gridKey[i] = key;
+		gridHead[i] = -1;
+		gridSize++;
+		return i;
+	}
+	
+	/**
+	 * Doubles the size of the hash table of the grid of pending nodes. 
+	 */
+	private void growGrid() {
+		long[] oldKey = gridKey;
+		int[] oldHead = gridHead;
+		gridKey = new long[2 * oldKey.length];
+		gridHead = new int[2 * oldKey.length];
+		Arrays.fill(gridHead, UNUSED);
+		gridSize = 0;
+		for(int i = 0; i < oldKey.length; i++) {
+			if(oldHead[i] != UNUSED) {
+				gridHead[findCell(oldKey[i], true)] = oldHead[i];
+			}
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.IndexedNodeCollection#needsRebuild()
+	 */
+	protected boolean needsRebuild() {
+		if(numPending > 0 && (numPending >= treeSize - numRemoved || scanCost >= rebuildCost)) {
+			return true; // it does not pay off to scan the pending nodes anymore 
+		}
+		return numRemoved > treeSize / 2; // most of the nodes in the tree have been removed
+	}
+	
+	/**
+	 * Bulk loads the tree from all nodes of this collection and clears the list of pending nodes. 
+	 */
+	protected void rebuild() {
+		int size = allNodes.size();
+		if(treeNode.length < size) {
+			int capacity = Math.max(size, 2 * treeNode.length);
+			treeNode = new Node[capacity];
+			treeCoord = new double[3 * capacity];
+			treeAxis = new byte[capacity];
+		}
+		treeNode = allNodes.toArray(treeNode);
+		for(int i = size; i < treeSize; i++) {
+			treeNode[i] = null; // don't hold on to nodes that are not in the tree anymore 
+		}
+		for(int i = 0; i < size; i++) {
+			Position p = treeNode[i].getPosition();
+			treeCoord[3 * i] = p.xCoord;
+			treeCoord[3 * i + 1] = p.yCoord;
+			treeCoord[3 * i + 2] = p.zCoord;
+		}
+		build(0, size);
+		for(int i = 0; i < size; i++) {
+			KdTreeEntry entry = (KdTreeEntry) treeNode[i].nodeCollectionInfo;
+			entry.treeIndex = i;
+			entry.pendingIndex = -1;
+		}
+		for(int i = 0; i < numPending; i++) {
+			pending[i] = null;
+		}
+		Arrays.fill(gridHead, UNUSED);
+		gridSize = 0;
+		treeSize = size;
+		numRemoved = 0;
+		numPending = 0;
+		scanCost = 0;
+		int depth = 1;
+		while((1 << depth) <= size) {
+			depth++;
+		}
+		rebuildCost = (long) size * depth;
+	}
+	
+	/**
+	 * Builds the subtree stored in [lo, hi) by splitting it at the median of the 
+	 * axis along which the nodes are spread most.  
+	 * @param lo The first offset of the subtree
+	 * @param hi The offset after the last node of the subtree
+	 */
+	private void build(int lo, int hi) {
+		if(hi - lo <= 1) {
+			return; // a leaf needs no axis
+		}
+		int axis = 0;
+		double maxSpread = -1;
+		for(int a = 0; a < numAxes; a++) {
+			double min = treeCoord[3 * lo + a], max = min;
+			for(int i = lo + 1; i < hi; i++) {
+				double c = treeCoord[3 * i + a];
+				if(c < min) {
+					min = c;
+				} else if(c > max) {
+					max = c;
+				}
+			}
+			if(max - min > maxSpread) {
+				maxSpread = max - min;
+				axis = a;
+			}
+		}
+		int mid = (lo + hi) >>> 1;
+		select(lo, hi - 1, mid, axis);
+		treeAxis[mid] = (byte) axis;
+		build(lo, mid);
+		build(mid + 1, hi);
+	}
+	
+	/**
+	 * Reorders the nodes in [lo, hi] such that the node at offset k has the k-th smallest 
+	 * coordinate along the given axis, no node before k has a larger and no node after 
+	 * k has a smaller coordinate (Hoare's selection).
+	 */
+	private void select(int lo, int hi, int k, int axis) {
+		while(lo < hi) {
+			double pivot = treeCoord[3 * k + axis];
+			int i = lo, j = hi;
+			do {
+				while(treeCoord[3 * i + axis] < pivot) {
+					i++;
+				}
+				while(pivot < treeCoord[3 * j + axis]) {
+					j--;
+				}
+				if(i <= j) {
+					swap(i, j);
+					i++;
+					j--;
+				}
+			} while(i <= j);
+			if(j < k) {
+				lo = i;
+			}
+			if(k < i) {
+				hi = j;
+			}
+		}
+	}
+	
+	/**
+	 * Swaps two nodes in the arrays of the tree.
+	 */
+	private void swap(int i, int j) {
+		Node n = treeNode[i];
+		treeNode[i] = treeNode[j];
+		treeNode[j] = n;
+		for(int a = 0; a < 3; a++) {
+			double c = treeCoord[3 * i + a];
+			treeCoord[3 * i + a] = treeCoord[3 * j + a];
+			treeCoord[3 * j + a] = c;
+		}
+	}
+	
+	/**
+	 * Collects all nodes whose current position is within a given distance of a position. 
+	 * @param pos The center of the query
+	 * @param radius The maximal distance
+	 * @param result The enumeration to store the nodes in 
+	 */
+	private void query(Position pos, double radius, RadiusEnumeration result) {
+		result.clear();
+		double r2 = radius * radius;
+		double x = pos.xCoord, y = pos.yCoord, z = pos.zCoord;
+		
+		// the tree stores old positions: search further by the slack and test the current position 
+		double reach = radius + slack;
+		int top = 0;
+		if(treeSize > 0) {
+			stack[top++] = 0;
+			stack[top++] = treeSize;
+		}
+		while(top > 0) {
+			int hi = stack[--top];
+			int lo = stack[--top];
+			int mid = (lo + hi) >>> 1;
+			Node n = treeNode[mid];
+			if(n != null && ((KdTreeEntry) n.nodeCollectionInfo).pendingIndex == -1) {
+				Position p = n.getPosition();
+				double dx = p.xCoord - x, dy = p.yCoord - y, dz = p.zCoord - z;
+				if(dx * dx + dy * dy + dz * dz <= r2) {
+					result.add(n);
+				}
+			}
+			if(hi - lo <= 1) {
+				continue;
+			}
+			int axis = treeAxis[mid];
+			double d = (axis == 0 ? x : (axis == 1 ? y : z)) - treeCoord[3 * mid + axis];
+			if(top + 4 > stack.length) {
+				int[] tmp = new int[2 * stack.length];
+				System.arraycopy(stack, 0, tmp, 0, top);
+				stack = tmp;
+			}
+			if(d <= reach && lo < mid) { // the left subtree holds the smaller coordinates
+				stack[top++] = lo;
+				stack[top++] = mid;
+			}
+			if(d >= -reach && mid + 1 < hi) {
+				stack[top++] = mid + 1;
+				stack[top++] = hi;
+			}
+		}
+		
+		if(numPending == 0) {
+			return;
+		}
+		// the pending nodes in the cells around the position, or all pending nodes if there are fewer 
+		long reachCells = (long) Math.ceil(radius / rMax);
+		long numCells = 2 * reachCells + 1;
+		numCells = numAxes == 3 ? numCells * numCells * numCells : numCells * numCells;
+		if(reachCells > 0xFFFFF || numCells > numPending) {
+			for(int i = 0; i < numPending; i++) {
+				addIfInRange(pending[i], x, y, z, r2, result);
+			}
+			scanCost += numPending;
+			return;
+		}
+		long cx = mapCoord(x), cy = mapCoord(y), cz = numAxes == 3 ? mapCoord(z) : 0;
+		long reachZ = numAxes == 3 ? reachCells : 0;
+		for(long i = cx - reachCells; i <= cx + reachCells; i++) {
+			for(long j = cy - reachCells; j <= cy + reachCells; j++) {
+				for(long k = cz - reachZ; k <= cz + reachZ; k++) {
+					int c = findCell(getCellKey(i, j, k), false);
+					if(c == -1) {
+						continue;
+					}
+					for(int s = gridHead[c]; s != -1; s = pendingNext[s]) {
+						addIfInRange(pending[s], x, y, z, r2, result);
+						scanCost++;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Adds a node to the result of a query if its current position is within the queried distance. 
+	 */
+	private void addIfInRange(Node n, double x, double y, double z, double r2, RadiusEnumeration result) {
+		Position p = n.getPosition();
+		double dx = p.xCoord - x, dy = p.yCoord - y, dz = p.zCoord - z;
+		if(dx * dx + dy * dy + dz * dz <= r2) {
+			result.add(n);
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.IndexedNodeCollection#enumeratePossibleNeighbors(sinalgo.nodes.Node)
+	 */
+	protected Enumeration<Node> enumeratePossibleNeighbors(Node n) {
+		query(n.getPosition(), rMax, enumeration);
+		return enumeration;
+	}
+	
+	/**
+	 * Returns an enumeration over all nodes whose distance to a given position 
+	 * is at most a given radius. The enumeration holds a snapshot of the nodes 
+	 * and is not affected by subsequent changes to this collection.
+	 * @param pos The center of the query
+	 * @param radius The maximal distance of the returned nodes to pos 
+	 * @return An enumeration over all nodes within distance radius of pos
+	 */
+	public Enumeration<Node> getNodesInRadius(Position pos, double radius) {
+		rebuildIfNecessary();
+		RadiusEnumeration result = new RadiusEnumeration();
+		query(pos, radius, result);
+		return result;
+	}
+	
+	/**
+	 * An enumeration over the nodes found by a query.
+	 */
+	private class RadiusEnumeration implements Enumeration<Node> {
+		private Node[] nodes = new Node[16];
+		private int size = 0;
+		private int index = 0;
+		
+		/**
+		 * Removes all nodes from this enumeration.
+		 */
+		public void clear() {
+			for(int i = 0; i < size; i++) {
+				nodes[i] = null;
+			}
+			size = index = 0;
+		}
+		
+		/**
+		 * Appends a node to this enumeration.
+		 * @param n The node
+		 */
+		public void add(Node n) {
+			if(size == nodes.length) {
+				Node[] tmp = new Node[2 * size];
+				System.arraycopy(nodes, 0, tmp, 0, size);
+				nodes = tmp;
+			}
+			nodes[size++] = n;
+		}
+		
+		public boolean hasMoreElements() {
+			return index < size;
+		}
+
+		public Node nextElement() {
+			if(index >= size) {
+				throw new NoSuchElementException();
+			}
+			return nodes[index++];
+		}
+	}
+}
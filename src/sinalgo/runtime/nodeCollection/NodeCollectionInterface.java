@@ -60,6 +60,9 @@ import sinalgo.nodes.Node;
  */
 public abstract class NodeCollectionInterface implements Iterable<Node> {
 	
+	// the nodes of this collection indexed by their ID, null for IDs without a node
+	private Node[] nodesByID = new Node[16];
+	
 	/**
 	 * This method returns an enumeration over all the nodes.
 	 *
@@ -105,6 +108,22 @@ public abstract class NodeCollectionInterface implements Iterable<Node> {
 	 */
 	public abstract Enumeration<Node> getPossibleNeighborsEnumeration(Node n);
 	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b><br>
+	 * Retrieves the possible neighbor candidates of a node, like {@link #getPossibleNeighborsEnumeration(Node)}, 
+	 * while a node is being moved, e.g. by its mobility model.
+	 * <p>
+	 * A node collection that reorganizes itself after the nodes have moved should not do so 
+	 * in this method, but defer the reorganization to the first call of getPossibleNeighborsEnumeration(Node)
+	 * after the nodes have moved. The default implementation calls getPossibleNeighborsEnumeration(Node).
+	 * 
+	 * @param n The node to get the neighbor candidates for.
+	 * @return The Enumeration over the possible neighbors of node n.
+	 */
+	public Enumeration<Node> getPossibleNeighborsEnumerationWhileMoving(Node n) {
+		return getPossibleNeighborsEnumeration(n);
+	}
+	
 	/**
 	 * Adds a node to this node collection. 
 	 * 
@@ -119,6 +138,12 @@ public abstract class NodeCollectionInterface implements Iterable<Node> {
 	 */
 	public void addNode(Node n) {
 		_addNode(n);
+		if(n.ID >= nodesByID.length) {
+			Node[] tmp = new Node[Math.max(n.ID + 1, 2 * nodesByID.length)];
+			System.arraycopy(nodesByID, 0, tmp, 0, nodesByID.length);
+			nodesByID = tmp;
+		}
+		nodesByID[n.ID] = n;
 		for(NodeCollectionListener l : listeners) {
 			l.nodeAdded(n);
 		}
@@ -141,6 +166,9 @@ public abstract class NodeCollectionInterface implements Iterable<Node> {
 	 */
 	public void removeNode(Node n) {
 		_removeNode(n);
+		if(n.ID < nodesByID.length && nodesByID[n.ID] == n) {
+			nodesByID[n.ID] = null; // leave a hole, the IDs of removed nodes are not reused
+		}
 		for(NodeCollectionListener l : listeners) {
 			l.nodeRemoved(n);
 		}
@@ -180,6 +208,21 @@ public abstract class NodeCollectionInterface implements Iterable<Node> {
 //	 */
 //	public abstract boolean hasSensitiveInfoChanged();
 
+	/**
+	 * Returns the node with a given ID.
+	 * <p>
+	 * The node collection keeps an array of its nodes indexed by their ID. As the 
+	 * IDs are assigned sequentially, this array is dense, and the lookup takes O(1) time.
+	 * @param id The ID of the node to return. 
+	 * @return The node with the given ID, null if this collection holds no such node.
+	 */
+	public Node getNodeByID(int id) {
+		if(id < 0 || id >= nodesByID.length) {
+			return null;
+		}
+		return nodesByID[id];
+	}
+	
 	/**
 	 * Returns a random node from the node collection. If there are no nodes in the system, it
 	 * returns null.
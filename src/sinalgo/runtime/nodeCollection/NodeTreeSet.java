@@ -0,0 +1,550 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import sinalgo.nodes.Node;
+
+/**
+ * A set of nodes ordered by their ID. The nodes are stored in a red-black tree
+ * whose entries additionally hold the number of entries in their subtree.
+ * <p>
+ * Adding and removing a node takes O(log n) time, and so does accessing the i-th
+ * node of the set, which is used to pick a random node. Iterating over all nodes
+ * takes O(1) amortized time per node.
+ * <p>
+ * The iterators and enumerations returned by this set do not fail when the set is 
+ * modified while they are in use. They continue with the first node whose ID is 
+ * larger than the ID of the node returned last. 
+ */
+public class NodeTreeSet implements Iterable<Node> {
+
+	private static final boolean RED = false;
+	private static final boolean BLACK = true;
+
+	private Entry root = null;
+	private int modCount = 0; // # of modifications
+	
+	/**
+	 * An entry of the tree.
+	 */
+	private static final class Entry {
+		Node node;
+		Entry left = null;
+		Entry right = null;
+		Entry parent;
+		boolean color = BLACK;
+		int size = 1; // the number of entries in the subtree rooted at this entry
+		
+		Entry(Node node, Entry parent) {
+			this.node = node;
+			this.parent = parent;
+		}
+	}
+	
+	/**
+	 * Adds a node to this set. 
+	 * @param n The node to add
+	 * @return True if the node was added, false if this set already contains a node with the same ID.
+	 */
+	public boolean add(Node n) {
+		int id = n.ID;
+		if(root == null) {
+			root = new Entry(n, null);
+			modCount++;
+			return true;
+		}
+		Entry t = root, parent;
+		do {
+			parent = t;
+			if(id < t.node.ID) {
+				t = t.left;
+			} else if(id > t.node.ID) {
+				t = t.right;
+			} else {
+				return false; // already contained
+			}
+		} while(t != null);
+		Entry e = new Entry(n, parent);
+		if(id < parent.node.ID) {
+			parent.left = e;
+		} else {
+			parent.right = e;
+		}
+		for(Entry p = parent; p != null; p = p.parent) {
+			p.size++;
+		}
+		fixAfterInsertion(e);
+		modCount++;
+		return true;
+	}
+	
+	/**
+	 * Removes a node from this set.
+	 * @param n The node to remove
+	 * @return True if the node was contained in this set, otherwise false.
+	 */
+	public boolean remove(Node n) {
+		Entry p = getEntry(n.ID);
+		if(p == null || p.node != n) {
+			return false;
+		}
+		deleteEntry(p);
+		modCount++;
+		return true;
+	}
+	
+	/**
+	 * @param n A node
+	 * @return True if this set contains the given node, otherwise false.
+	 */
+	public boolean contains(Node n) {
+		Entry p = getEntry(n.ID);
+		return p != null && p.node == n;
+	}
+	
+	/**
+	 * Retrieves the node at a given index in this set.
+	 * @param index The zero-based index of the node, where the nodes are ordered by their ID. 
+	 * @return The node at the given index.
+	 * @throws ArrayIndexOutOfBoundsException if the index is negative or not less than the size of this set.
+	 */
+	public Node elementAt(int index) throws ArrayIndexOutOfBoundsException {
+		if(index < 0 || index >= size()) {
+			throw new ArrayIndexOutOfBoundsException("Invalid index: index=" + index + " size of set=" + size());
+		}
+		Entry t = root;
+		while(true) {
+			int l = size(t.left);
+			if(index < l) {
+				t = t.left;
+			} else if(index == l) {
+				return t.node;
+			} else {
+				index -= l + 1;
+				t = t.right;
+			}
+		}
+	}
+	
+	/**
+	 * @return The number of nodes in this set.
+	 */
+	public int size() {
+		return size(root);
+	}
+	
+	/**
+	 * Copies the nodes of this set, ordered by their ID, into an array. 
+	 * @param a The array to copy the nodes to, if it is large enough. If the array 
+	 * is larger than this set, the entry following the last node is set to null.
+	 * @return The given array if it was large enough, otherwise a new array holding the nodes.
+	 */
+	public Node[] toArray(Node[] a) {
+		int size = size();
+		if(a.length < size) {
+			a = new Node[size];
+		}
+		int i = 0;
+		for(Entry e = first(); e != null; e = successor(e)) {
+			a[i++] = e.node;
+		}
+		if(a.length > size) {
+			a[size] = null;
+		}
+		return a;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Iterable#iterator()
+	 */
+	public Iterator<Node> iterator() {
+		return new TreeIterator();
+	}
+	
+	/**
+	 * @return An enumeration over the nodes of this set, ordered by their ID.
+	 */
+	public Enumeration<Node> elements() {
+		return new TreeIterator();
+	}
+	
+	/**
+	 * An iterator over the nodes of the set, which also serves as enumeration.
+	 * When the set has been modified since the last step, the iterator looks up 
+	 * the next node again.   
+	 */
+	private class TreeIterator implements Iterator<Node>, Enumeration<Node> {
+		private Entry next = first();
+		private int expectedModCount = modCount;
+		private boolean started = false; // whether a node has been returned
+		private int lastID; // the ID of the node returned last
+		private Node lastReturned = null; // the node that can be removed by remove() 
+		
+		/**
+		 * Looks up the next node again if the set has been modified.
+		 */
+		private void revalidate() {
+			if(expectedModCount != modCount) {
+				next = started ? higher(lastID) : first();
+				expectedModCount = modCount;
+			}
+		}
+		
+		public boolean hasNext() {
+			revalidate();
+			return next != null;
+		}
+		
+		public Node next() {
+			revalidate();
+			if(next == null) {
+				throw new NoSuchElementException();
+			}
+			Entry e = next;
+			next = successor(e);
+			started = true;
+			lastID = e.node.ID;
+			lastReturned = e.node;
+			return e.node;
+		}
+		
+		public void remove() {
+			if(lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			NodeTreeSet.this.remove(lastReturned);
+			lastReturned = null;
+		}
+		
+		public boolean hasMoreElements() {
+			return hasNext();
+		}
+		
+		public Node nextElement() {
+			return next();
+		}
+	}
+	
+	/**
+	 * @param id The ID of a node
+	 * @return The entry holding the node with the given ID, null if there is no such entry.
+	 */
+	private Entry getEntry(int id) {
+		Entry t = root;
+		while(t != null) {
+			if(id < t.node.ID) {
+				t = t.left;
+			} else if(id > t.node.ID) {
+				t = t.right;
+			} else {
+				return t;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @param id The ID of a node
+	 * @return The entry holding the node with the smallest ID larger than the given ID, 
+	 * null if there is no such entry.
+	 */
+	private Entry higher(int id) {
+		Entry t = root, result = null;
+		while(t != null) {
+			if(id < t.node.ID) {
+				result = t;
+				t = t.left;
+			} else {
+				t = t.right;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @return The entry holding the node with the smallest ID, null if the set is empty.
+	 */
+	private Entry first() {
+		Entry t = root;
+		if(t != null) {
+			while(t.left != null) {
+				t = t.left;
+			}
+		}
+		return t;
+	}
+	
+	/**
+	 * @param t An entry of the tree
+	 * @return The entry following the given entry, null if there is none.
+	 */
+	private static Entry successor(Entry t) {
+		if(t.right != null) {
+			Entry p = t.right;
+			while(p.left != null) {
+				p = p.left;
+			}
+			return p;
+		}
+		Entry p = t.parent;
+		Entry ch = t;
+		while(p != null && ch == p.right) {
+			ch = p;
+			p = p.parent;
+		}
+		return p;
+	}
+	
+	/**
+	 * Removes an entry from the tree and rebalances the tree.
+	 * @param p The entry to remove
+	 */
+	private void deleteEntry(Entry p) {
+		// If p has two children, move its successor into p and delete the entry of the successor instead
+		if(p.left != null && p.right != null) {
+			Entry s = successor(p);
+			p.node = s.node;
+			p = s;
+		}
+		for(Entry q = p.parent; q != null; q = q.parent) {
+			q.size--;
+		}
+		
+		Entry replacement = (p.left != null ? p.left : p.right);
+		if(replacement != null) {
+			// link the replacement to the parent of p
+			replacement.parent = p.parent;
+			if(p.parent == null) {
+				root = replacement;
+			} else if(p == p.parent.left) {
+				p.parent.left = replacement;
+			} else {
+				p.parent.right = replacement;
+			}
+			p.left = p.right = p.parent = null;
+			if(p.color == BLACK) {
+				fixAfterDeletion(replacement);
+			}
+		} else if(p.parent == null) { // the only entry
+			root = null;
+		} else { // no children: use p as phantom replacement and unlink it afterwards
+			p.size = 0; // the ancestors do not count p anymore
+			if(p.color == BLACK) {
+				fixAfterDeletion(p);
+			}
+			if(p.parent != null) {
+				if(p == p.parent.left) {
+					p.parent.left = null;
+				} else if(p == p.parent.right) {
+					p.parent.right = null;
+				}
+				p.parent = null;
+			}
+		}
+		p.node = null;
+	}
+	
+	private static int size(Entry p) {
+		return p == null ? 0 : p.size;
+	}
+	
+	private static boolean colorOf(Entry p) {
+		return p == null ? BLACK : p.color;
+	}
+
+	private static Entry parentOf(Entry p) {
+		return p == null ? null : p.parent;
+	}
+
+	private static void setColor(Entry p, boolean c) {
+		if(p != null) {
+			p.color = c;
+		}
+	}
+
+	private static Entry leftOf(Entry p) {
+		return p == null ? null : p.left;
+	}
+
+	private static Entry rightOf(Entry p) {
+		return p == null ? null : p.right;
+	}
+	
+	private void rotateLeft(Entry p) {
+		if(p != null) {
+			Entry r = p.right;
+			p.right = r.left;
+			if(r.left != null) {
+				r.left.parent = p;
+			}
+			r.parent = p.parent;
+			if(p.parent == null) {
+				root = r;
+			} else if(p.parent.left == p) {
+				p.parent.left = r;
+			} else {
+				p.parent.right = r;
+			}
+			r.left = p;
+			p.parent = r;
+			r.size = p.size;
+			p.size = size(p.left) + size(p.right) + 1;
+		}
+	}
+
+	private void rotateRight(Entry p) {
+		if(p != null) {
+			Entry l = p.left;
+			p.left = l.right;
+			if(l.right != null) {
+				l.right.parent = p;
+			}
+			l.parent = p.parent;
+			if(p.parent == null) {
+				root = l;
+			} else if(p.parent.right == p) {
+				p.parent.right = l;
+			} else {
+				p.parent.left = l;
+			}
+			l.right = p;
+			p.parent = l;
+			l.size = p.size;
+			p.size = size(p.left) + size(p.right) + 1;
+		}
+	}
+	
+	private void fixAfterInsertion(Entry x) {
+		x.color = RED;
+		while(x != null && x != root && x.parent.color == RED) {
+			if(parentOf(x) == leftOf(parentOf(parentOf(x)))) {
+				Entry y = rightOf(parentOf(parentOf(x)));
+				if(colorOf(y) == RED) {
+					setColor(parentOf(x), BLACK);
+					setColor(y, BLACK);
+					setColor(parentOf(parentOf(x)), RED);
+					x = parentOf(parentOf(x));
+				} else {
+					if(x == rightOf(parentOf(x))) {
+						x = parentOf(x);
+						rotateLeft(x);
+					}
+					setColor(parentOf(x), BLACK);
+					setColor(parentOf(parentOf(x)), RED);
+					rotateRight(parentOf(parentOf(x)));
+				}
+			} else {
+				Entry y = leftOf(parentOf(parentOf(x)));
+				if(colorOf(y) == RED) {
+					setColor(parentOf(x), BLACK);
+					setColor(y, BLACK);
+					setColor(parentOf(parentOf(x)), RED);
+					x = parentOf(parentOf(x));
+				} else {
+					if(x == leftOf(parentOf(x))) {
+						x = parentOf(x);
+						rotateRight(x);
+					}
+					setColor(parentOf(x), BLACK);
+					setColor(parentOf(parentOf(x)), RED);
+					rotateLeft(parentOf(parentOf(x)));
+				}
+			}
+		}
+		root.color = BLACK;
+	}
+	
+	private void fixAfterDeletion(Entry x) {
+		while(x != root && colorOf(x) == BLACK) {
+			if(x == leftOf(parentOf(x))) {
+				Entry sib = rightOf(parentOf(x));
+				if(colorOf(sib) == RED) {
+					setColor(sib, BLACK);
+					setColor(parentOf(x), RED);
+					rotateLeft(parentOf(x));
+					sib = rightOf(parentOf(x));
+				}
+				if(colorOf(leftOf(sib)) == BLACK && colorOf(rightOf(sib)) == BLACK) {
+					setColor(sib, RED);
+					x = parentOf(x);
+				} else {
+					if(colorOf(rightOf(sib)) == BLACK) {
+						setColor(leftOf(sib), BLACK);
+						setColor(sib, RED);
+						rotateRight(sib);
+						sib = rightOf(parentOf(x));
+					}
+					setColor(sib, colorOf(parentOf(x)));
+					setColor(parentOf(x), BLACK);
+					setColor(rightOf(sib), BLACK);
+					rotateLeft(parentOf(x));
+					x = root;
+				}
+			} else { // symmetric
+				Entry sib = leftOf(parentOf(x));
+				if(colorOf(sib) == RED) {
+					setColor(sib, BLACK);
+					setColor(parentOf(x), RED);
+					rotateRight(parentOf(x));
+					sib = leftOf(parentOf(x));
+				}
+				if(colorOf(rightOf(sib)) == BLACK && colorOf(leftOf(sib)) == BLACK) {
+					setColor(sib, RED);
+					x = parentOf(x);
+				} else {
+					if(colorOf(leftOf(sib)) == BLACK) {
+						setColor(rightOf(sib), BLACK);
+						setColor(sib, RED);
+						rotateLeft(sib);
+						sib = leftOf(parentOf(x));
+					}
+					setColor(sib, colorOf(parentOf(x)));
+					setColor(parentOf(x), BLACK);
+					setColor(leftOf(sib), BLACK);
+					rotateRight(parentOf(x));
+					x = root;
+				}
+			}
+		}
+		setColor(x, BLACK);
+	}
+}
@@ -177,6 +177,15 @@ public class Tools {
 		return Global.numberOfMessagesOverAll;
 	}
 	
+	/**
+	 * @return The number of packets that have been sent so far since the start of the
+	 * framework. A packet may carry several messages if <code>Configuration.coalesceMessages</code>
+	 * is enabled.
+	 */
+	public static int getNumberOfSentPackets(){
+		return Global.numberOfPacketsOverAll;
+	}
+	
 	//**************************************************************************************
 	// Information about settings of the framework.
 	//**************************************************************************************
@@ -388,18 +397,12 @@ public class Tools {
 	
 	/**
 	 * Returns the node with the given ID, null if there is no such node.
-	 * Note: This method is rather expensive, as it loops over all
-	 * nodes until it finds the suitable node.  
+	 * The lookup takes constant time. 
 	 * @param id The ID of the node to return.
 	 * @return The node with the given ID, null if there is no such node.
 	 */
 	public static Node getNodeByID(int id) {
-		for(Node n : Runtime.nodes) {
-			if(n.ID == id) {
-				return n;
-			}
-		}
-		return null;
+		return Runtime.nodes.getNodeByID(id);
 	}
 	
 	/**
@@ -859,7 +862,7 @@ public class Tools {
 	 */
 	public static void printSinalgoMemoryStats(PrintStream ps) {
 		ps.print("\nSinalgo Memory Stats:\nRecycling:  (used / recycled)\n");
-		ps.print("  Packets \t(" + Packet.numPacketsOnTheFly + " / " + Packet.getNumFreedPackets() + ")\n");  
+		ps.print("  Packets \t(" + Packet.getNumPacketsOnTheFly() + " / " + Packet.getNumFreedPackets() + ")\n");  
 		if(Global.isAsynchronousMode) {
 			ps.print("  PacketEvents \t(" + PacketEvent.numPacketEventsOnTheFly + " / " + PacketEvent.getNumFreedPacketEvents() + ")\n"); 
 			ps.print("  TimerEvents \t(" + TimerEvent.numTimerEventsOnTheFly + " / " + TimerEvent.getNumFreedTimerEvents() + ")\n");
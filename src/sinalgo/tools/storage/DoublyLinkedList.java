@@ -156,6 +156,7 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 		}
 		size ++;
 		modCount++;
+		entryAdded(entry);
 		return true;
 	}
 	
@@ -197,6 +198,7 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 		}
 		size ++;
 		modCount++;
+		entryAdded(entry);
 		return true;
 	}
 	
@@ -225,6 +227,7 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 	 * @param f The finger of the entry
 	 * @return True if the entry was in this list, otherwise false.
 	 */
+	@SuppressWarnings("unchecked")
 	private boolean remove(DoublyLinkedListEntry.Finger f) {
 		if(f == null) {
 			return false; // not in list and no finger
@@ -239,9 +242,11 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 		} else { // was last entry
 			tail = f.previous;
 		}
-		f.object.getDoublyLinkedListFinger().releaseFinger(f, keepFinger);
+		DoublyLinkedListEntry entry = f.object;
+		entry.getDoublyLinkedListFinger().releaseFinger(f, keepFinger);
 		size--;
 		modCount++;
+		entryRemoved((E) entry);
 		return true;
 	}
 
@@ -332,8 +337,27 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 		return e;
 	}
 
+	/**
+	 * Called whenever an entry has been added to this list, no matter whether 
+	 * through the methods of the list or of one of its iterators. 
+	 * <p>
+	 * Subclasses may overwrite this method to maintain additional information 
+	 * about the entries of the list. The default implementation does nothing. 
+	 * @param entry The entry that was added.
+	 */
+	protected void entryAdded(E entry) {
+	}
 	
-	
+	/**
+	 * Called whenever an entry has been removed from this list, no matter whether 
+	 * through the methods of the list or of one of its iterators. 
+	 * <p>
+	 * Subclasses may overwrite this method to maintain additional information 
+	 * about the entries of the list. The default implementation does nothing. 
+	 * @param entry The entry that was removed.
+	 */
+	protected void entryRemoved(E entry) {
+	}
 	
 //	/**
 //	 * This method returns a Iterator. It either resets the reusable iterator or creates a 
@@ -517,6 +541,7 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 		/* (non-Javadoc)
 		 * @see java.util.ListIterator#set(E)
 		 */
+		@SuppressWarnings("unchecked")
 		public void set(E o) {
 			if (lastReturned == head) {
 				throw new IllegalStateException();
@@ -534,7 +559,10 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 			}
 			lastReturned.previous.next = f; // there's always a previous
 			// release the finger of the old entry
-			lastReturned.object.getDoublyLinkedListFinger().releaseFinger(lastReturned, keepFinger);
+			DoublyLinkedListEntry replaced = lastReturned.object;
+			replaced.getDoublyLinkedListFinger().releaseFinger(lastReturned, keepFinger);
+			entryRemoved((E) replaced);
+			entryAdded(o);
 			if(lastReturned == next) { // restore the pointers
 				lastReturned = next = f;
 			} else {
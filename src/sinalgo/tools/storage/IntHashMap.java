@@ -0,0 +1,238 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.tools.storage;
+
+/**
+ * A hash map from primitive int keys to objects. 
+ * <p>
+ * The map uses open addressing with linear probing, such that neither the keys 
+ * nor the entries need to be boxed or wrapped. Removal shifts the following entries 
+ * of the probe sequence back and leaves no tombstones behind.
+ * <p>
+ * <b>Note:</b> The map does not accept null values, a null value marks a free slot.
+ * @param <V> The type of the values stored in this map.
+ */
+public class IntHashMap<V> {
+
+	private int[] keys;
+	private Object[] values; // null if the slot is free
+	private int size = 0; // # of entries in the map
+	private int mask; // capacity - 1, the capacity is always a power of 2
+	private int threshold; // grow the map when the size reaches this value
+
+	/**
+	 * Creates a new map with room for at least the given number of entries 
+	 * before the map needs to grow.
+	 * @param expectedSize The number of entries expected in the map. 
+	 */
+	public IntHashMap(int expectedSize) {
+		int capacity = 4;
+		while(capacity * 3 / 4 <= expectedSize) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+	
+	/**
+	 * Creates a new, empty map.
+	 */
+	public IntHashMap() {
+		this(2);
+	}
+	
+	/**
+	 * Returns the value associated with a given key. 
+	 * @param key The key to look up.
+	 * @return The value associated with the key, null if the map contains no entry for this key.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int i = slot(key);
+		Object v;
+		while((v = values[i]) != null) {
+			if(keys[i] == key) {
+				return (V) v;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+	
+	/**
+	 * @param key The key to look up. 
+	 * @return True if the map contains an entry for the given key, otherwise false.
+	 */
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+	
+	/**
+	 * Associates a value with a key. An existing value for the key is replaced. 
+	 * @param key The key 
+	 * @param value The value to associate with the key, must not be null.
+	 * @return The value previously associated with the key, null if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		if(value == null) {
+			throw new NullPointerException("IntHashMap does not accept null values.");
+		}
+		int i = slot(key);
+		Object v;
+		while((v = values[i]) != null) {
+			if(keys[i] == key) {
+				values[i] = value;
+				return (V) v;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		if(++size >= threshold) {
+			rehash(values.length << 1);
+		}
+		return null;
+	}
+	
+	/**
+	 * Removes the entry for a given key. 
+	 * @param key The key of the entry to remove.
+	 * @return The value that was associated with the key, null if the map contained no entry for the key.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		int i = slot(key);
+		Object v;
+		while((v = values[i]) != null) {
+			if(keys[i] == key) {
+				shiftBack(i);
+				size--;
+				return (V) v;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+	
+	/**
+	 * Removes all entries from this map. The map keeps its current capacity.
+	 */
+	public void clear() {
+		if(size > 0) {
+			java.util.Arrays.fill(values, null);
+			size = 0;
+		}
+	}
+	
+	/**
+	 * @return The number of entries in this map.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return True if this map contains no entries, otherwise false. 
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Frees the slot at a given position and moves the entries of the following probe 
+	 * sequence back such that each entry remains reachable from its home slot.  
+	 * @param free The slot to free.
+	 */
+	private void shiftBack(int free) {
+		int i = free;
+		while(true) {
+			i = (i + 1) & mask;
+			if(values[i] == null) {
+				break;
+			}
+			int home = slot(keys[i]);
+			// the entry at i may only move to 'free' if 'free' lies cyclically in [home, i) 
+			if(((i - home) & mask) >= ((i - free) & mask)) {
+				keys[free] = keys[i];
+				values[free] = values[i];
+				free = i;
+			}
+		}
+		values[free] = null;
+	}
+	
+	/**
+	 * @param key A key
+	 * @return The home slot of the given key.
+	 */
+	private int slot(int key) {
+		int h = key * 0x9E3779B9; // Fibonacci hashing spreads consecutive IDs
+		return (h ^ (h >>> 16)) & mask;
+	}
+	
+	/**
+	 * Allocates empty tables of a given capacity.
+	 * @param capacity The new capacity, a power of 2.
+	 */
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		threshold = capacity * 3 / 4;
+	}
+	
+	/**
+	 * Moves all entries into tables of a given capacity.
+	 * @param capacity The new capacity, a power of 2.
+	 */
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		for(int j = 0; j < oldValues.length; j++) {
+			Object v = oldValues[j];
+			if(v != null) {
+				int i = slot(oldKeys[j]);
+				while(values[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				values[i] = v;
+			}
+		}
+	}
+}